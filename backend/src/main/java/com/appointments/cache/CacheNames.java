@@ -0,0 +1,14 @@
+package com.appointments.cache;
+
+/**
+ * Names of the two-tier caches holding booking reference data
+ */
+public final class CacheNames {
+
+    public static final String SERVICES = "services";
+    public static final String STAFF = "staff";
+    public static final String WORKING_HOURS = "workingHours";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,205 @@
+package com.appointments.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * A Caffeine L1 in front of an optional Redis L2.
+ *
+ * Reads go L1, then L2, then the loader; loaded values are written to both tiers. Evictions
+ * clear both tiers and are broadcast so other nodes drop their L1 copy. Every L2 call is
+ * guarded by {@link TwoTierCacheManager#isRemoteUp()}, so a Redis outage degrades to local-only
+ * caching instead of failing requests. Keys are stored as strings so broadcast evictions can
+ * address them.
+ *
+ * A loader may read a row just before its change commits and finish after the commit-time
+ * eviction. To keep that stale value out of L2, a load does not write L2 if this node saw the key
+ * evicted while it ran, and every L2 eviction is repeated after {@code cache.redis.evict-delay-ms}
+ * to remove a value written by a slow loader on another node.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final TwoTierCacheManager manager;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> evictedAt = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Timer loadTimer;
+
+    TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                 TwoTierCacheManager manager, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+        this.remoteHits = meterRegistry.counter("cache.remote.requests", "cache", name, "result", "hit");
+        this.remoteMisses = meterRegistry.counter("cache.remote.requests", "cache", name, "result", "miss");
+        this.loadTimer = Timer.builder("cache.load")
+                .description("Time spent loading values missing from both cache tiers")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        Object value = local.getIfPresent(localKey);
+        if (value == null) {
+            value = getRemote(localKey);
+            if (value != null) {
+                local.put(localKey, value);
+            }
+        }
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Used by {@code @Cacheable(sync = true)}: concurrent misses for the same key on this node
+     * wait for a single load
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) local.get(String.valueOf(key), localKey -> {
+            Object value = getRemote(localKey);
+            if (value != null) {
+                return value;
+            }
+            long loadStart = System.nanoTime();
+            Timer.Sample sample = Timer.start();
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            } finally {
+                sample.stop(loadTimer);
+            }
+            Long evicted = evictedAt.getIfPresent(localKey);
+            if (value != null && (evicted == null || evicted - loadStart < 0)) {
+                putRemote(localKey, value);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String localKey = String.valueOf(key);
+        putRemote(localKey, value);
+        local.put(localKey, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = String.valueOf(key);
+        evictedAt.put(localKey, System.nanoTime());
+        evictRemote(localKey);
+        local.invalidate(localKey);
+        manager.publishEviction(name, localKey);
+        manager.afterEvictDelay(() -> evictRemote(localKey));
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null && manager.isRemoteUp()) {
+            try {
+                remote.clear();
+            } catch (RuntimeException e) {
+                manager.remoteFailed(e);
+            }
+        }
+        local.invalidateAll();
+        manager.publishEviction(name, null);
+    }
+
+    /**
+     * Drop the local copy only; called for evictions broadcast by other nodes
+     */
+    void evictLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            evictedAt.put(key, System.nanoTime());
+            local.invalidate(key);
+        }
+    }
+
+    private void evictRemote(String key) {
+        if (remote == null || !manager.isRemoteUp()) {
+            return;
+        }
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            manager.remoteFailed(e);
+        }
+    }
+
+    private Object getRemote(String key) {
+        if (remote == null || !manager.isRemoteUp()) {
+            return null;
+        }
+        try {
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                remoteHits.increment();
+                return wrapper.get();
+            }
+            remoteMisses.increment();
+        } catch (RuntimeException e) {
+            manager.remoteFailed(e);
+        }
+        return null;
+    }
+
+    private void putRemote(String key, Object value) {
+        if (remote == null || !manager.isRemoteUp()) {
+            return;
+        }
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            manager.remoteFailed(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.appointments.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@link TwoTierCache}s on demand and relays evictions between nodes over Redis pub/sub.
+ *
+ * Messages have the form {@code nodeId \n cacheName \n key}, with an empty key meaning "clear".
+ * When Redis is not configured the manager runs local-only; when a Redis call fails, the L2 tier
+ * and broadcasts are skipped for {@code retryInterval} before Redis is tried again.
+ * L2 evictions are repeated once after {@code evictDelay} on a single background thread.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final long retryIntervalMillis;
+    private final MeterRegistry meterRegistry;
+    private final long evictDelayMillis;
+    private final ScheduledExecutorService delayedEvictions = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-delayed-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long remoteDownUntil;
+
+    /**
+     * @param remoteCacheManager Redis cache manager, or null for local-only caching
+     * @param redisTemplate      template used to publish evictions, or null for local-only caching
+     */
+    public TwoTierCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate, String channel,
+                               long localMaxSize, Duration localTtl, Duration retryInterval,
+                               Duration evictDelay, MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.retryIntervalMillis = retryInterval.toMillis();
+        this.meterRegistry = meterRegistry;
+        this.evictDelayMillis = evictDelay.toMillis();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoTierCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+        Cache remote = remoteCacheManager != null ? remoteCacheManager.getCache(name) : null;
+        return new TwoTierCache(name, local, remote, this, meterRegistry);
+    }
+
+    boolean isRemoteUp() {
+        return System.currentTimeMillis() >= remoteDownUntil;
+    }
+
+    void remoteFailed(RuntimeException e) {
+        if (isRemoteUp()) {
+            log.warn("Redis cache tier unavailable, using local cache only for {} ms: {}",
+                    retryIntervalMillis, e.getMessage());
+        }
+        remoteDownUntil = System.currentTimeMillis() + retryIntervalMillis;
+    }
+
+    /**
+     * Run a repeat of an L2 eviction once loads that started before it have had time to finish
+     */
+    void afterEvictDelay(Runnable eviction) {
+        if (remoteCacheManager == null || evictDelayMillis <= 0) {
+            return;
+        }
+        try {
+            delayedEvictions.schedule(eviction, evictDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Delayed cache eviction skipped during shutdown");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayedEvictions.shutdown();
+    }
+
+    void publishEviction(String cacheName, String key) {
+        if (redisTemplate == null || !isRemoteUp()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + "\n" + cacheName + "\n" + (key != null ? key : ""));
+        } catch (RuntimeException e) {
+            remoteFailed(e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(parts[2].isEmpty() ? null : parts[2]);
+        }
+    }
+}
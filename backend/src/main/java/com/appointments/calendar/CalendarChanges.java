@@ -0,0 +1,13 @@
+package com.appointments.calendar;
+
+import java.util.List;
+
+/**
+ * Events changed since a sync token, and the token to pass next time.
+ *
+ * @param fullSync true when the provider listed the whole calendar, either because there was no
+ *                 token yet or because it no longer accepted the old one. Events missing from a
+ *                 full listing no longer exist.
+ */
+public record CalendarChanges(List<ExternalCalendarEvent> events, String syncToken, boolean fullSync) {
+}
@@ -0,0 +1,26 @@
+package com.appointments.calendar;
+
+/**
+ * Pulling changes from a provider failed; the sync is retried later from the same token
+ */
+public class CalendarFetchException extends RuntimeException {
+
+    private final int status;
+
+    public CalendarFetchException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public CalendarFetchException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+    }
+
+    /**
+     * The provider rejected the access token
+     */
+    public boolean isUnauthorized() {
+        return status == 401;
+    }
+}
@@ -0,0 +1,45 @@
+package com.appointments.calendar;
+
+import com.appointments.entity.CalendarEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Pushes event changes to one calendar provider in batches, pulls the changes made there
+ * incrementally and refreshes the OAuth tokens of its accounts. Implementations talk HTTP to a
+ * configurable base URL, so tests can point every provider at a local fake server.
+ */
+public interface CalendarProvider {
+
+    CalendarEvent.Provider getProvider();
+
+    /**
+     * Most operations the provider accepts in one batch call
+     */
+    int getMaxBatchSize();
+
+    /**
+     * Send up to {@link #getMaxBatchSize()} operations on one account's calendars in a single call
+     *
+     * @return one result per operation, in the same order
+     */
+    List<CalendarPushResult> push(String accessToken, List<CalendarPushOperation> operations);
+
+    /**
+     * Pull the events of a calendar changed since {@code syncToken}, following every page. Without a
+     * token, or when the provider has expired it, the calendar is listed afresh for the window
+     * {@code from}..{@code to}; providers that cannot bound a listing return later events as well.
+     *
+     * @throws CalendarFetchException if the changes could not be read
+     */
+    CalendarChanges fetchChanges(String accessToken, String calendarId, String syncToken,
+                                 LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Exchange a refresh token for a new access token
+     *
+     * @throws TokenRefreshException if the provider refused or could not be reached
+     */
+    TokenGrant refreshAccessToken(String refreshToken);
+}
@@ -0,0 +1,16 @@
+package com.appointments.calendar;
+
+import java.time.LocalDateTime;
+
+/**
+ * One event change to push. {@code externalEventId} is null for events the provider has not created yet.
+ * Times are UTC.
+ */
+public record CalendarPushOperation(Action action, Long appointmentId, String calendarId, String externalEventId,
+                                    String title, String description, LocalDateTime startTime,
+                                    LocalDateTime endTime) {
+
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,43 @@
+package com.appointments.calendar;
+
+/**
+ * Outcome of one pushed operation. A failed result may still carry the event id, e.g. when a create
+ * finds the event already exists. {@code status} is the provider's HTTP status when it answered with
+ * an error, otherwise 0.
+ */
+public record CalendarPushResult(boolean success, String externalEventId, boolean retryable, String error,
+                                 int status) {
+
+    public CalendarPushResult(boolean success, String externalEventId, boolean retryable, String error) {
+        this(success, externalEventId, retryable, error, 0);
+    }
+
+    public static CalendarPushResult ok(String externalEventId) {
+        return new CalendarPushResult(true, externalEventId, false, null);
+    }
+
+    public static CalendarPushResult failed(int status, String error) {
+        return new CalendarPushResult(false, null, isRetryable(status), status + ": " + error, status);
+    }
+
+    /**
+     * The same result for every operation of a batch call that failed as a whole
+     */
+    public static CalendarPushResult batchFailed(String error) {
+        return new CalendarPushResult(false, null, true, error);
+    }
+
+    /**
+     * The provider rejected the access token
+     */
+    public boolean unauthorized() {
+        return status == 401;
+    }
+
+    /**
+     * Throttling, server errors and expired credentials are worth retrying; other client errors are not
+     */
+    public static boolean isRetryable(int status) {
+        return status == 0 || status == 401 || status == 408 || status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,14 @@
+package com.appointments.calendar;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event that changed in an external calendar. Deleted, cancelled and free events are not busy;
+ * times are UTC and may be null for deleted events.
+ */
+public record ExternalCalendarEvent(String id, boolean busy, LocalDateTime startTime, LocalDateTime endTime) {
+
+    public static ExternalCalendarEvent removed(String id) {
+        return new ExternalCalendarEvent(id, false, null, null);
+    }
+}
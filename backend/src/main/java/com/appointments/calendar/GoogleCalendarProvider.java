@@ -0,0 +1,335 @@
+package com.appointments.calendar;
+
+import com.appointments.entity.CalendarEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Google Calendar over the batch endpoint: up to 50 operations travel as parts of one
+ * {@code multipart/mixed} request and come back as parts of one response, matched by Content-ID.
+ *
+ * Events are created with a client-chosen id derived from the appointment id, so a create that
+ * is retried after a lost response finds the event (409) instead of duplicating it.
+ *
+ * Changes are pulled with {@code events.list} and a sync token. A token Google no longer accepts
+ * (410) restarts with a full listing from the window start; Google does not allow an end bound
+ * on a listing whose token is used later, so later events come back too.
+ */
+@Component
+@RequiredArgsConstructor
+public class GoogleCalendarProvider implements CalendarProvider {
+
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final String CRLF = "\r\n";
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final Pattern CONTENT_ID = Pattern.compile("(?i)content-id:\\s*<response-item(\\d+)>");
+    private static final DateTimeFormatter UTC_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    private static final Pattern STATUS_LINE = Pattern.compile("HTTP/1\\.1 (\\d{3})");
+    private static final int PAGE_SIZE = 250;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${google.api.base-url:https://www.googleapis.com}")
+    private String baseUrl;
+
+    @Value("${google.oauth.token-url:https://oauth2.googleapis.com/token}")
+    private String tokenUrl;
+
+    @Value("${google.client.id:}")
+    private String clientId;
+
+    @Value("${google.client.secret:}")
+    private String clientSecret;
+
+    @Value("${calendar.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${calendar.http.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Override
+    public CalendarEvent.Provider getProvider() {
+        return CalendarEvent.Provider.GOOGLE;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public List<CalendarPushResult> push(String accessToken, List<CalendarPushOperation> operations) {
+        String boundary = "batch_" + UUID.randomUUID().toString().replace("-", "");
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < operations.size(); i++) {
+            appendPart(body, boundary, i, operations.get(i));
+        }
+        body.append("--").append(boundary).append("--").append(CRLF);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/batch/calendar/v3"))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "multipart/mixed; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return Collections.nCopies(operations.size(),
+                        CalendarPushResult.failed(response.statusCode(), "Batch rejected"));
+            }
+            return parseResponse(response, operations);
+        } catch (IOException e) {
+            return Collections.nCopies(operations.size(), CalendarPushResult.batchFailed(e.toString()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.nCopies(operations.size(), CalendarPushResult.batchFailed("Interrupted"));
+        }
+    }
+
+    @Override
+    public CalendarChanges fetchChanges(String accessToken, String calendarId, String syncToken,
+                                        LocalDateTime from, LocalDateTime to) {
+        boolean fullSync = syncToken == null;
+        List<ExternalCalendarEvent> events = new ArrayList<>();
+        String pageToken = null;
+        while (true) {
+            StringBuilder url = new StringBuilder(baseUrl).append("/calendar/v3/calendars/").append(encode(calendarId))
+                    .append("/events?singleEvents=true&showDeleted=true&maxResults=").append(PAGE_SIZE);
+            if (fullSync) {
+                url.append("&timeMin=").append(encode(utc(from)));
+            } else {
+                url.append("&syncToken=").append(encode(syncToken));
+            }
+            if (pageToken != null) {
+                url.append("&pageToken=").append(encode(pageToken));
+            }
+            HttpResponse<String> response = get(accessToken, url.toString());
+            if (response.statusCode() == 410 && !fullSync) {
+                // Token expired: start over with a full listing
+                fullSync = true;
+                events.clear();
+                pageToken = null;
+                continue;
+            }
+            if (response.statusCode() != 200) {
+                throw new CalendarFetchException("Listing Google events failed with " + response.statusCode(),
+                        response.statusCode());
+            }
+            JsonNode page = readJson(response.body());
+            for (JsonNode item : page.path("items")) {
+                events.add(toExternalEvent(item));
+            }
+            pageToken = page.path("nextPageToken").asText(null);
+            if (pageToken == null) {
+                return new CalendarChanges(events, page.path("nextSyncToken").asText(null), fullSync);
+            }
+        }
+    }
+
+    @Override
+    public TokenGrant refreshAccessToken(String refreshToken) {
+        return OAuthTokenEndpoint.refresh(httpClient, objectMapper, tokenUrl, Map.of(
+                "grant_type", "refresh_token",
+                "client_id", clientId,
+                "client_secret", clientSecret,
+                "refresh_token", refreshToken), requestTimeoutMs);
+    }
+
+    private HttpResponse<String> get(String accessToken, String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Authorization", "Bearer " + accessToken)
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new CalendarFetchException("Listing Google events failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CalendarFetchException("Interrupted", e);
+        }
+    }
+
+    private static ExternalCalendarEvent toExternalEvent(JsonNode item) {
+        String id = item.path("id").asText();
+        LocalDateTime start = eventTime(item.path("start"));
+        LocalDateTime end = eventTime(item.path("end"));
+        if ("cancelled".equals(item.path("status").asText()) || start == null || end == null) {
+            return ExternalCalendarEvent.removed(id);
+        }
+        boolean busy = !"transparent".equals(item.path("transparency").asText());
+        return new ExternalCalendarEvent(id, busy, start, end);
+    }
+
+    /**
+     * UTC time of a timed event, or midnight UTC for an all-day event
+     */
+    private static LocalDateTime eventTime(JsonNode time) {
+        if (time.hasNonNull("dateTime")) {
+            return OffsetDateTime.parse(time.get("dateTime").asText())
+                    .withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        }
+        if (time.hasNonNull("date")) {
+            return LocalDate.parse(time.get("date").asText()).atStartOfDay();
+        }
+        return null;
+    }
+
+    private void appendPart(StringBuilder body, String boundary, int index, CalendarPushOperation operation) {
+        String events = "/calendar/v3/calendars/" + encode(operation.calendarId()) + "/events";
+        body.append("--").append(boundary).append(CRLF)
+                .append("Content-Type: application/http").append(CRLF)
+                .append("Content-ID: <item").append(index).append(">").append(CRLF)
+                .append(CRLF);
+        switch (operation.action()) {
+            case CREATE:
+                ObjectNode created = eventJson(operation);
+                created.put("id", eventId(operation.appointmentId()));
+                appendRequest(body, "POST " + events, created);
+                break;
+            case UPDATE:
+                appendRequest(body, "PUT " + events + "/" + encode(operation.externalEventId()), eventJson(operation));
+                break;
+            default:
+                appendRequest(body, "DELETE " + events + "/" + encode(operation.externalEventId()), null);
+                break;
+        }
+    }
+
+    private void appendRequest(StringBuilder body, String requestLine, ObjectNode json) {
+        body.append(requestLine).append(" HTTP/1.1").append(CRLF);
+        if (json != null) {
+            body.append("Content-Type: application/json").append(CRLF)
+                    .append(CRLF)
+                    .append(json).append(CRLF);
+        } else {
+            body.append(CRLF);
+        }
+    }
+
+    private List<CalendarPushResult> parseResponse(HttpResponse<String> response, List<CalendarPushOperation> operations) {
+        CalendarPushResult[] results = new CalendarPushResult[operations.size()];
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        Matcher boundaryMatcher = BOUNDARY.matcher(contentType);
+        if (boundaryMatcher.find()) {
+            for (String part : response.body().split("--" + Pattern.quote(boundaryMatcher.group(1)))) {
+                Matcher id = CONTENT_ID.matcher(part);
+                Matcher status = STATUS_LINE.matcher(part);
+                if (!id.find() || !status.find()) {
+                    continue;
+                }
+                int index = Integer.parseInt(id.group(1));
+                if (index < results.length) {
+                    results[index] = toResult(operations.get(index), Integer.parseInt(status.group(1)),
+                            partBody(part, status.end()));
+                }
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = CalendarPushResult.batchFailed("No response part for operation");
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private CalendarPushResult toResult(CalendarPushOperation operation, int status, String body) {
+        if (operation.action() == CalendarPushOperation.Action.DELETE && (status == 404 || status == 410)) {
+            return CalendarPushResult.ok(null);
+        }
+        if (operation.action() == CalendarPushOperation.Action.CREATE && status == 409) {
+            // Created by an earlier attempt whose response was lost: retry as an update
+            return new CalendarPushResult(false, eventId(operation.appointmentId()), true, "Event already exists");
+        }
+        if (status >= 200 && status < 300) {
+            JsonNode json = readJson(body);
+            return CalendarPushResult.ok(json.hasNonNull("id") ? json.get("id").asText() : operation.externalEventId());
+        }
+        return CalendarPushResult.failed(status, readJson(body).path("error").path("message").asText(""));
+    }
+
+    private ObjectNode eventJson(CalendarPushOperation operation) {
+        ObjectNode event = objectMapper.createObjectNode();
+        event.put("summary", operation.title());
+        event.put("description", operation.description());
+        event.putObject("start").put("dateTime", utc(operation.startTime())).put("timeZone", "UTC");
+        event.putObject("end").put("dateTime", utc(operation.endTime())).put("timeZone", "UTC");
+        event.putObject("extendedProperties").putObject("private")
+                .put("appointmentId", String.valueOf(operation.appointmentId()));
+        return event;
+    }
+
+    private JsonNode readJson(String body) {
+        try {
+            return body.isBlank() ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    /**
+     * Body of an embedded response: everything after the first blank line following the status line
+     */
+    private static String partBody(String part, int from) {
+        int start = part.indexOf("\r\n\r\n", from);
+        int skip = 4;
+        if (start < 0) {
+            start = part.indexOf("\n\n", from);
+            skip = 2;
+        }
+        return start < 0 ? "" : part.substring(start + skip).trim();
+    }
+
+    /**
+     * Google event ids allow base32hex characters (a-v, 0-9)
+     */
+    static String eventId(Long appointmentId) {
+        return "appt" + appointmentId;
+    }
+
+    private static String utc(LocalDateTime time) {
+        return UTC_FORMAT.format(time);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,278 @@
+package com.appointments.calendar;
+
+import com.appointments.entity.CalendarEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Microsoft Graph over JSON batching: up to 20 operations per {@code $batch} call, with responses
+ * matched back by request id (Graph may return them in any order).
+ *
+ * Creates carry a {@code transactionId} derived from the appointment id, which Graph uses to
+ * recognise a retried create.
+ *
+ * Changes are pulled with a {@code calendarView} delta query. Its deltaLink is the sync token; a
+ * link Graph no longer accepts (410) restarts the delta for the window, which Graph fixes when the
+ * delta starts.
+ */
+@Component
+@RequiredArgsConstructor
+public class MicrosoftCalendarProvider implements CalendarProvider {
+
+    private static final int MAX_BATCH_SIZE = 20;
+    private static final String PRIMARY_CALENDAR = "primary";
+    private static final DateTimeFormatter LOCAL_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final int PAGE_SIZE = 200;
+    private static final String SCOPE = "offline_access https://graph.microsoft.com/Calendars.ReadWrite";
+    private static final Set<String> BUSY = Set.of("busy", "oof", "tentative", "workingElsewhere");
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${microsoft.graph.base-url:https://graph.microsoft.com}")
+    private String baseUrl;
+
+    @Value("${microsoft.oauth.base-url:https://login.microsoftonline.com}")
+    private String oauthBaseUrl;
+
+    @Value("${microsoft.tenant.id:common}")
+    private String tenantId;
+
+    @Value("${microsoft.client.id:}")
+    private String clientId;
+
+    @Value("${microsoft.client.secret:}")
+    private String clientSecret;
+
+    @Value("${calendar.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${calendar.http.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Override
+    public CalendarEvent.Provider getProvider() {
+        return CalendarEvent.Provider.MICROSOFT;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public List<CalendarPushResult> push(String accessToken, List<CalendarPushOperation> operations) {
+        ObjectNode batch = objectMapper.createObjectNode();
+        ArrayNode requests = batch.putArray("requests");
+        for (int i = 0; i < operations.size(); i++) {
+            requests.add(toRequest(String.valueOf(i), operations.get(i)));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/v1.0/$batch"))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(batch.toString()))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return Collections.nCopies(operations.size(),
+                        CalendarPushResult.failed(response.statusCode(), "Batch rejected"));
+            }
+            return parseResponse(objectMapper.readTree(response.body()), operations);
+        } catch (IOException e) {
+            return Collections.nCopies(operations.size(), CalendarPushResult.batchFailed(e.toString()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.nCopies(operations.size(), CalendarPushResult.batchFailed("Interrupted"));
+        }
+    }
+
+    @Override
+    public CalendarChanges fetchChanges(String accessToken, String calendarId, String syncToken,
+                                        LocalDateTime from, LocalDateTime to) {
+        boolean fullSync = syncToken == null;
+        String url = fullSync ? deltaStart(calendarId, from, to) : syncToken;
+        List<ExternalCalendarEvent> events = new ArrayList<>();
+        while (true) {
+            HttpResponse<String> response = get(accessToken, url);
+            if (response.statusCode() == 410 && !fullSync) {
+                // Delta state expired: start a new delta for the window
+                fullSync = true;
+                events.clear();
+                url = deltaStart(calendarId, from, to);
+                continue;
+            }
+            if (response.statusCode() != 200) {
+                throw new CalendarFetchException("Graph delta query failed with " + response.statusCode(),
+                        response.statusCode());
+            }
+            JsonNode page;
+            try {
+                page = objectMapper.readTree(response.body());
+            } catch (IOException e) {
+                throw new CalendarFetchException("Unreadable Graph delta page", e);
+            }
+            for (JsonNode item : page.path("value")) {
+                events.add(toExternalEvent(item));
+            }
+            if (page.hasNonNull("@odata.nextLink")) {
+                url = page.get("@odata.nextLink").asText();
+            } else {
+                return new CalendarChanges(events, page.path("@odata.deltaLink").asText(null), fullSync);
+            }
+        }
+    }
+
+    /**
+     * Microsoft rotates refresh tokens, so the grant usually carries a new one
+     */
+    @Override
+    public TokenGrant refreshAccessToken(String refreshToken) {
+        return OAuthTokenEndpoint.refresh(httpClient, objectMapper,
+                oauthBaseUrl + "/" + encode(tenantId) + "/oauth2/v2.0/token", Map.of(
+                        "grant_type", "refresh_token",
+                        "client_id", clientId,
+                        "client_secret", clientSecret,
+                        "refresh_token", refreshToken,
+                        "scope", SCOPE), requestTimeoutMs);
+    }
+
+    private String deltaStart(String calendarId, LocalDateTime from, LocalDateTime to) {
+        String view = PRIMARY_CALENDAR.equals(calendarId)
+                ? "/v1.0/me/calendarView/delta"
+                : "/v1.0/me/calendars/" + encode(calendarId) + "/calendarView/delta";
+        return baseUrl + view + "?startDateTime=" + LOCAL_FORMAT.format(from) + "Z&endDateTime="
+                + LOCAL_FORMAT.format(to) + "Z";
+    }
+
+    private HttpResponse<String> get(String accessToken, String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Prefer", "odata.maxpagesize=" + PAGE_SIZE + ", outlook.timezone=\"UTC\"")
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new CalendarFetchException("Graph delta query failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CalendarFetchException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Event times come back in UTC because of the {@code outlook.timezone} preference
+     */
+    private static ExternalCalendarEvent toExternalEvent(JsonNode item) {
+        String id = item.path("id").asText();
+        if (item.has("@removed") || item.path("isCancelled").asBoolean(false)
+                || !item.path("start").hasNonNull("dateTime") || !item.path("end").hasNonNull("dateTime")) {
+            return ExternalCalendarEvent.removed(id);
+        }
+        return new ExternalCalendarEvent(id, BUSY.contains(item.path("showAs").asText()),
+                LocalDateTime.parse(item.path("start").get("dateTime").asText()),
+                LocalDateTime.parse(item.path("end").get("dateTime").asText()));
+    }
+
+    private ObjectNode toRequest(String id, CalendarPushOperation operation) {
+        String events = PRIMARY_CALENDAR.equals(operation.calendarId())
+                ? "/me/events"
+                : "/me/calendars/" + encode(operation.calendarId()) + "/events";
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("id", id);
+        switch (operation.action()) {
+            case CREATE:
+                request.put("method", "POST").put("url", events);
+                ObjectNode created = eventJson(operation);
+                created.put("transactionId", "appointment-" + operation.appointmentId());
+                request.set("body", created);
+                break;
+            case UPDATE:
+                request.put("method", "PATCH").put("url", "/me/events/" + encode(operation.externalEventId()));
+                request.set("body", eventJson(operation));
+                break;
+            default:
+                request.put("method", "DELETE").put("url", "/me/events/" + encode(operation.externalEventId()));
+                break;
+        }
+        if (request.has("body")) {
+            request.putObject("headers").put("Content-Type", "application/json");
+        }
+        return request;
+    }
+
+    private List<CalendarPushResult> parseResponse(JsonNode batch, List<CalendarPushOperation> operations) {
+        CalendarPushResult[] results = new CalendarPushResult[operations.size()];
+        for (JsonNode response : batch.path("responses")) {
+            int index = response.path("id").asInt(-1);
+            if (index < 0 || index >= results.length) {
+                continue;
+            }
+            CalendarPushOperation operation = operations.get(index);
+            int status = response.path("status").asInt();
+            JsonNode body = response.path("body");
+            if (operation.action() == CalendarPushOperation.Action.DELETE && (status == 404 || status == 410)) {
+                results[index] = CalendarPushResult.ok(null);
+            } else if (status >= 200 && status < 300) {
+                results[index] = CalendarPushResult.ok(body.hasNonNull("id") ? body.get("id").asText()
+                        : operation.externalEventId());
+            } else {
+                results[index] = CalendarPushResult.failed(status, body.path("error").path("message").asText(""));
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = CalendarPushResult.batchFailed("No response for operation");
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private ObjectNode eventJson(CalendarPushOperation operation) {
+        ObjectNode event = objectMapper.createObjectNode();
+        event.put("subject", operation.title());
+        event.putObject("body").put("contentType", "text").put("content", operation.description());
+        event.putObject("start").put("dateTime", LOCAL_FORMAT.format(operation.startTime())).put("timeZone", "UTC");
+        event.putObject("end").put("dateTime", LOCAL_FORMAT.format(operation.endTime())).put("timeZone", "UTC");
+        return event;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,57 @@
+package com.appointments.calendar;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The OAuth 2.0 refresh_token grant, which Google and Microsoft identity platform implement alike
+ */
+final class OAuthTokenEndpoint {
+
+    private OAuthTokenEndpoint() {
+    }
+
+    static TokenGrant refresh(HttpClient httpClient, ObjectMapper objectMapper, String tokenUrl,
+                              Map<String, String> form, long requestTimeoutMs) {
+        String body = form.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(tokenUrl))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            JsonNode json = response.body().isBlank() ? objectMapper.createObjectNode() : objectMapper.readTree(response.body());
+            if (response.statusCode() != 200) {
+                String error = json.path("error").asText("");
+                // invalid_grant: the refresh token was revoked or has expired
+                throw new TokenRefreshException("Token refresh failed with " + response.statusCode() + " " + error,
+                        "invalid_grant".equals(error) || "unauthorized_client".equals(error));
+            }
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+            return new TokenGrant(json.path("access_token").asText(), json.path("refresh_token").asText(null),
+                    now.plusSeconds(json.path("expires_in").asLong(3600)));
+        } catch (IOException e) {
+            throw new TokenRefreshException("Token refresh failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenRefreshException("Interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.appointments.calendar;
+
+import java.time.LocalDateTime;
+
+/**
+ * Credentials returned by a token refresh. {@code refreshToken} is null unless the provider rotated it.
+ * {@code expiresAt} is UTC.
+ */
+public record TokenGrant(String accessToken, String refreshToken, LocalDateTime expiresAt) {
+}
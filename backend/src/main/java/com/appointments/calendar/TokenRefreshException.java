@@ -0,0 +1,24 @@
+package com.appointments.calendar;
+
+/**
+ * A token refresh failed. Permanent failures (revoked or expired refresh token) need the user to link
+ * the account again; others are worth retrying.
+ */
+public class TokenRefreshException extends RuntimeException {
+
+    private final boolean permanent;
+
+    public TokenRefreshException(String message, boolean permanent) {
+        super(message);
+        this.permanent = permanent;
+    }
+
+    public TokenRefreshException(String message, Throwable cause) {
+        super(message, cause);
+        this.permanent = false;
+    }
+
+    public boolean isPermanent() {
+        return permanent;
+    }
+}
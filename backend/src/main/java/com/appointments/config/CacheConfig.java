@@ -0,0 +1,90 @@
+package com.appointments.config;
+
+import com.appointments.cache.TwoTierCacheManager;
+import com.appointments.service.AvailabilityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Two-tier cache for booking reference data: Caffeine per node, Redis shared.
+ * Set {@code cache.redis.enabled=false} to run with the local tier only.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${cache.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${cache.redis.ttl-seconds:1800}")
+    private long redisTtlSeconds;
+
+    @Value("${cache.redis.retry-seconds:30}")
+    private long retrySeconds;
+
+    @Value("${cache.redis.evict-delay-ms:2000}")
+    private long evictDelayMillis;
+
+    @Value("${cache.invalidation-channel:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${availability.cache.invalidation-channel:availability-invalidation}")
+    private String availabilityInvalidationChannel;
+
+    @Value("${cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${cache.local.ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    @Bean
+    public TwoTierCacheManager cacheManager(ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                            ObjectProvider<StringRedisTemplate> redisTemplate,
+                                            MeterRegistry meterRegistry) {
+        CacheManager remote = null;
+        StringRedisTemplate publisher = null;
+        RedisConnectionFactory factory = redisEnabled ? connectionFactory.getIfAvailable() : null;
+        if (factory != null) {
+            RedisCacheManager redisCacheManager = RedisCacheManager.builder(factory)
+                    .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                            .entryTtl(Duration.ofSeconds(redisTtlSeconds))
+                            .disableCachingNullValues())
+                    .build();
+            redisCacheManager.afterPropertiesSet();
+            remote = redisCacheManager;
+            publisher = redisTemplate.getIfAvailable();
+        }
+        return new TwoTierCacheManager(remote, publisher, invalidationChannel, localMaxSize,
+                Duration.ofSeconds(localTtlSeconds), Duration.ofSeconds(retrySeconds),
+                Duration.ofMillis(evictDelayMillis), meterRegistry);
+    }
+
+    /**
+     * Subscribes to evictions from other nodes, for the reference data caches and the availability
+     * cache. The container retries in the background if Redis is down.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager cacheManager,
+                                                                   AvailabilityCache availabilityCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setRecoveryInterval(retrySeconds * 1000);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        container.addMessageListener(availabilityCache, new ChannelTopic(availabilityInvalidationChannel));
+        return container;
+    }
+}
@@ -1,7 +1,9 @@
 package com.appointments.config;
 
+import com.appointments.security.BoundedPasswordEncoder;
 import com.appointments.security.CustomUserDetailsService;
 import com.appointments.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -46,16 +48,35 @@ public class SecurityConfig {
     @Value("${cors.allow-credentials}")
     private boolean allowCredentials;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Value("${auth.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${auth.password.threads:0}")
+    private int hashingThreads;
+
+    @Value("${auth.password.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${auth.password.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    /**
+     * BCrypt on a bounded pool (one thread per core unless configured). Hashes stored with a lower
+     * strength are re-encoded on the next successful login.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads,
+                hashingQueueCapacity, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -65,24 +86,30 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider)
+            throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Session endpoints need the token being revoked
+                        .requestMatchers("/auth/logout", "/auth/revoke-all").authenticated()
                         // Public endpoints
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
                         .requestMatchers("/ws/**").permitAll()
+                        // Calendar webhooks are verified by channel id and client state
+                        .requestMatchers("/integrations/*/webhook").permitAll()
                         // Admin endpoints
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         // Staff endpoints
                         .requestMatchers("/staff/*/schedule").hasAnyRole("STAFF", "ADMIN")
+                        .requestMatchers("/staff/*/schedule/**").hasAnyRole("STAFF", "ADMIN")
                         // All other endpoints require authentication
                         .anyRequest().authenticated()
                 )
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
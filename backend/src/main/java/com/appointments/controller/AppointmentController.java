@@ -1,19 +1,27 @@
 package com.appointments.controller;
 
+import com.appointments.dto.AppointmentPage;
 import com.appointments.dto.AppointmentRequest;
 import com.appointments.dto.AppointmentResponse;
+import com.appointments.dto.AppointmentSeriesRequest;
+import com.appointments.dto.AppointmentSeriesResponse;
+import com.appointments.dto.BatchAppointmentRequest;
+import com.appointments.dto.BatchAppointmentResponse;
+import com.appointments.entity.Appointment;
+import com.appointments.security.AuthenticatedUser;
+import com.appointments.service.AppointmentSeriesService;
 import com.appointments.service.AppointmentService;
+import com.appointments.service.BatchBookingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @RestController
 @RequestMapping("/appointments")
@@ -21,34 +29,53 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final BatchBookingService batchBookingService;
+    private final AppointmentSeriesService appointmentSeriesService;
 
     @PostMapping
     public ResponseEntity<AppointmentResponse> createAppointment(
             @Valid @RequestBody AppointmentRequest request,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser principal) {
         
-        AppointmentResponse response = appointmentService.createAppointment(request, userDetails.getUsername());
+        AppointmentResponse response = appointmentService.createAppointment(request, principal);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchAppointmentResponse> createAppointments(
+            @Valid @RequestBody BatchAppointmentRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+
+        BatchAppointmentResponse response = batchBookingService.createAppointments(request, principal);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/series")
+    public ResponseEntity<AppointmentSeriesResponse> createSeries(
+            @Valid @RequestBody AppointmentSeriesRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+
+        AppointmentSeriesResponse response = appointmentSeriesService.createSeries(request, principal);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @GetMapping
-    public ResponseEntity<List<AppointmentResponse>> getAppointments(
+    public ResponseEntity<AppointmentPage> getAppointments(
             @RequestParam(required = false) Long userId,
             @RequestParam(required = false) Long staffId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
-        
-        List<AppointmentResponse> appointments;
-        
-        if (staffId != null && from != null && to != null) {
-            appointments = appointmentService.getStaffAppointments(staffId, from, to);
-        } else if (userId != null) {
-            appointments = appointmentService.getUserAppointments(userId);
-        } else {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Appointment.Status status,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        if (userId == null && (staffId == null || from == null || to == null)) {
             throw new IllegalArgumentException("Either userId or (staffId + date range) must be provided");
         }
-        
-        return ResponseEntity.ok(appointments);
+
+        return ResponseEntity.ok(appointmentService.getAppointmentPage(
+                userId, staffId, from, to, status, direction, cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -60,9 +87,9 @@ public class AppointmentController {
     public ResponseEntity<AppointmentResponse> updateAppointment(
             @PathVariable Long id,
             @Valid @RequestBody AppointmentRequest request,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser principal) {
         
-        AppointmentResponse response = appointmentService.updateAppointment(id, request, userDetails.getUsername());
+        AppointmentResponse response = appointmentService.updateAppointment(id, request, principal);
         return ResponseEntity.ok(response);
     }
 
@@ -70,9 +97,9 @@ public class AppointmentController {
     public ResponseEntity<Void> cancelAppointment(
             @PathVariable Long id,
             @RequestParam(required = false) String reason,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser principal) {
         
-        appointmentService.cancelAppointment(id, reason, userDetails.getUsername());
+        appointmentService.cancelAppointment(id, reason, principal);
         return ResponseEntity.noContent().build();
     }
 }
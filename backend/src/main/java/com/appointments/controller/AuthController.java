@@ -3,7 +3,10 @@ package com.appointments.controller;
 import com.appointments.dto.*;
 import com.appointments.entity.User;
 import com.appointments.repository.UserRepository;
+import com.appointments.security.AuthenticatedUser;
 import com.appointments.security.JwtTokenProvider;
+import com.appointments.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -11,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +27,7 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
@@ -30,8 +35,9 @@ public class AuthController {
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
 
-        String token = tokenProvider.generateToken(authentication);
-        String refreshToken = tokenProvider.generateRefreshToken(request.getEmail());
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        String token = tokenProvider.generateToken(principal);
+        String refreshToken = tokenProvider.generateRefreshToken(principal);
 
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -66,8 +72,9 @@ public class AuthController {
 
         user = userRepository.save(user);
 
-        String token = tokenProvider.generateTokenFromUsername(user.getEmail());
-        String refreshToken = tokenProvider.generateRefreshToken(user.getEmail());
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        String token = tokenProvider.generateToken(principal);
+        String refreshToken = tokenProvider.generateRefreshToken(principal);
 
         UserResponse userResponse = mapToUserResponse(user);
 
@@ -79,6 +86,32 @@ public class AuthController {
                         .build());
     }
 
+    /**
+     * Revoke the access token used for this request and, if supplied, the matching refresh token
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal AuthenticatedUser principal,
+                                       @RequestBody(required = false) LogoutRequest request) {
+        tokenRevocationService.revoke(principal.getId(), principal.getTokenId(), principal.getTokenExpiresAt());
+
+        if (request != null && request.getRefreshToken() != null) {
+            Claims refreshClaims = tokenProvider.parseClaims(request.getRefreshToken());
+            if (refreshClaims != null) {
+                tokenRevocationService.revoke(principal.getId(), refreshClaims);
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Sign out everywhere: every access and refresh token issued so far stops working
+     */
+    @PostMapping("/revoke-all")
+    public ResponseEntity<Void> revokeAll(@AuthenticationPrincipal AuthenticatedUser principal) {
+        tokenRevocationService.revokeAll(principal.getId());
+        return ResponseEntity.noContent().build();
+    }
+
     private UserResponse mapToUserResponse(User user) {
         return UserResponse.builder()
                 .id(user.getId())
@@ -0,0 +1,31 @@
+package com.appointments.controller;
+
+import com.appointments.dto.SlotSearchResponse;
+import com.appointments.service.AvailabilitySearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/availability")
+@RequiredArgsConstructor
+public class AvailabilityController {
+
+    private final AvailabilitySearchService availabilitySearchService;
+
+    @GetMapping("/search")
+    public ResponseEntity<SlotSearchResponse> search(
+            @RequestParam Long serviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(availabilitySearchService.search(serviceId, from, to, limit));
+    }
+}
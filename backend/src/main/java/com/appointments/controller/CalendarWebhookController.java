@@ -0,0 +1,62 @@
+package com.appointments.controller;
+
+import com.appointments.entity.CalendarEvent;
+import com.appointments.service.InboundCalendarSyncService;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Change notifications from external calendars. Both endpoints only record that a channel
+ * changed and answer right away; the changes are pulled later, once per debounce window.
+ */
+@RestController
+@RequestMapping("/integrations")
+@RequiredArgsConstructor
+@Slf4j
+public class CalendarWebhookController {
+
+    private final InboundCalendarSyncService inboundCalendarSyncService;
+
+    /**
+     * Google push notification. The initial "sync" message of a new channel triggers its first full sync.
+     */
+    @PostMapping("/google/webhook")
+    public ResponseEntity<Void> googleWebhook(
+            @RequestHeader("X-Goog-Channel-ID") String channelId,
+            @RequestHeader("X-Goog-Resource-State") String resourceState,
+            @RequestHeader(value = "X-Goog-Channel-Token", required = false) String channelToken) {
+
+        if (!inboundCalendarSyncService.requestSync(CalendarEvent.Provider.GOOGLE, channelId, channelToken)) {
+            log.debug("Ignoring Google notification ({}) for unknown channel {}", resourceState, channelId);
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Microsoft Graph change notifications, and the validation handshake when a subscription is created
+     */
+    @PostMapping("/microsoft/webhook")
+    public ResponseEntity<String> microsoftWebhook(
+            @RequestParam(required = false) String validationToken,
+            @RequestBody(required = false) JsonNode body) {
+
+        if (validationToken != null) {
+            return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(validationToken);
+        }
+        if (body != null) {
+            for (JsonNode notification : body.path("value")) {
+                String subscriptionId = notification.path("subscriptionId").asText();
+                String clientState = notification.path("clientState").asText(null);
+                if (!inboundCalendarSyncService.requestSync(CalendarEvent.Provider.MICROSOFT, subscriptionId, clientState)) {
+                    log.debug("Ignoring Graph notification for unknown subscription {}", subscriptionId);
+                }
+            }
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.appointments.controller;
+
+import com.appointments.dto.AvailabilityResponse;
+import com.appointments.service.AvailabilityService;
+import com.appointments.service.ScheduleExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/staff")
+@RequiredArgsConstructor
+public class StaffController {
+
+    private final AvailabilityService availabilityService;
+    private final ScheduleExportService scheduleExportService;
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<AvailabilityResponse> getAvailability(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long serviceId) {
+
+        return ResponseEntity.ok(availabilityService.getAvailability(id, date, serviceId));
+    }
+
+    @GetMapping("/{id}/schedule/export")
+    public ResponseEntity<StreamingResponseBody> exportSchedule(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "NDJSON") ScheduleExportService.Format format) {
+
+        StreamingResponseBody body = scheduleExportService.export(id, from, to, format);
+        boolean csv = format == ScheduleExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"staff-" + id + "-schedule." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+}
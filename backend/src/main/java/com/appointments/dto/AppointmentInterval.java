@@ -0,0 +1,14 @@
+package com.appointments.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of an appointment's time range, used by the booking index and availability cache
+ */
+public interface AppointmentInterval {
+    Long getId();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+}
@@ -0,0 +1,18 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPage {
+    private List<AppointmentResponse> items;
+    /** Pass back as {@code cursor} to fetch the next page; null on the last page */
+    private String nextCursor;
+}
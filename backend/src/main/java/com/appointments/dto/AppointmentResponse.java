@@ -16,6 +16,7 @@ public class AppointmentResponse {
     private Long userId;
     private Long staffId;
     private Long serviceId;
+    private Long seriesId;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private String status;
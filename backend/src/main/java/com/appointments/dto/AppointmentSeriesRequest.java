@@ -0,0 +1,55 @@
+package com.appointments.dto;
+
+import com.appointments.entity.AppointmentSeries;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSeriesRequest {
+
+    @NotNull(message = "Staff ID is required")
+    private Long staffId;
+
+    @NotNull(message = "Service ID is required")
+    private Long serviceId;
+
+    /** Start of the first occurrence */
+    @NotNull(message = "Start time is required")
+    @Future(message = "Start time must be in the future")
+    private LocalDateTime startTime;
+
+    /** End of the first occurrence; every occurrence has the same length */
+    @NotNull(message = "End time is required")
+    private LocalDateTime endTime;
+
+    @NotNull(message = "Frequency is required")
+    private AppointmentSeries.Frequency frequency;
+
+    /** Repeat every N days or weeks */
+    @Builder.Default
+    @Min(value = 1, message = "Interval must be at least 1")
+    private Integer interval = 1;
+
+    /** Number of occurrences; either this or {@code until} is required */
+    @Min(value = 1, message = "Count must be at least 1")
+    private Integer count;
+
+    /** Last date an occurrence may start on, inclusive */
+    private LocalDate until;
+
+    @Builder.Default
+    private BatchAppointmentRequest.Mode mode = BatchAppointmentRequest.Mode.ALL_OR_NOTHING;
+
+    private String notes;
+}
@@ -0,0 +1,19 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSeriesResponse {
+    private Long seriesId;
+    private List<AppointmentResponse> created;
+    /** Occurrences that could not be booked, indexed by occurrence number starting at 0 */
+    private List<BatchAppointmentResponse.ItemError> failed;
+}
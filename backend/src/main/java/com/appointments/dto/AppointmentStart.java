@@ -0,0 +1,14 @@
+package com.appointments.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Start time and service of an active appointment, from which the in-memory timer derives reminder due times
+ */
+public interface AppointmentStart {
+    Long getId();
+
+    Long getServiceId();
+
+    LocalDateTime getStartTime();
+}
@@ -0,0 +1,33 @@
+package com.appointments.dto;
+
+import com.appointments.entity.Appointment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the columns {@link AppointmentResponse} needs.
+ * Association ids come straight from the foreign key columns, so no joins or entity hydration are involved.
+ */
+public interface AppointmentView {
+    Long getId();
+
+    Long getUserId();
+
+    Long getStaffId();
+
+    Long getServiceId();
+
+    Long getSeriesId();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+
+    Appointment.Status getStatus();
+
+    String getNotes();
+
+    String getCancellationReason();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,21 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityResponse {
+    private LocalDate date;
+    private Long staffId;
+    private Long serviceId;
+    private Integer durationMinutes;
+    private List<TimeSlot> availableSlots;
+}
@@ -0,0 +1,30 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAppointmentRequest {
+
+    @NotEmpty(message = "At least one appointment is required")
+    private List<@Valid AppointmentRequest> appointments;
+
+    @Builder.Default
+    private Mode mode = Mode.ALL_OR_NOTHING;
+
+    public enum Mode {
+        /** Any invalid or conflicting item rejects the whole batch */
+        ALL_OR_NOTHING,
+        /** Valid items are booked, the rest are reported back */
+        PARTIAL
+    }
+}
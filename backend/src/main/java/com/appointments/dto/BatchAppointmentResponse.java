@@ -0,0 +1,26 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAppointmentResponse {
+    private List<AppointmentResponse> created;
+    private List<ItemError> failed;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemError {
+        /** Position of the item in the request */
+        private int index;
+        private String message;
+    }
+}
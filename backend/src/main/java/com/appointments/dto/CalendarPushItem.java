@@ -0,0 +1,40 @@
+package com.appointments.dto;
+
+import com.appointments.entity.CalendarEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claimed calendar event with the appointment's current state, which is what gets pushed
+ */
+public interface CalendarPushItem {
+    Long getId();
+
+    Long getAppointmentId();
+
+    Long getAccountUserId();
+
+    CalendarEvent.Provider getProvider();
+
+    String getCalendarId();
+
+    String getExternalEventId();
+
+    CalendarEvent.PendingAction getPendingAction();
+
+    Integer getSyncVersion();
+
+    Integer getSyncAttempts();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+
+    String getServiceName();
+
+    String getCustomerFirstName();
+
+    String getCustomerLastName();
+
+    String getNotes();
+}
@@ -0,0 +1,18 @@
+package com.appointments.dto;
+
+import com.appointments.entity.CalendarEvent;
+
+/**
+ * A claimed webhook subscription: whose calendar to pull and the cursor to pull from
+ */
+public interface CalendarSyncItem {
+    Long getId();
+
+    Long getUserId();
+
+    CalendarEvent.Provider getProvider();
+
+    String getCalendarId();
+
+    String getSyncToken();
+}
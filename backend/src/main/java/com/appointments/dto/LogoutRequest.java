@@ -0,0 +1,18 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogoutRequest {
+
+    /**
+     * Optional; revoked together with the access token used for the request
+     */
+    private String refreshToken;
+}
@@ -0,0 +1,24 @@
+package com.appointments.dto;
+
+import com.appointments.entity.OAuthToken;
+
+import java.time.LocalDateTime;
+
+/**
+ * The stored credentials of one linked calendar account
+ */
+public interface OAuthTokenState {
+    Long getId();
+
+    Long getUserId();
+
+    OAuthToken.Provider getProvider();
+
+    String getAccessToken();
+
+    String getRefreshToken();
+
+    LocalDateTime getExpiresAt();
+
+    Integer getRefreshFailures();
+}
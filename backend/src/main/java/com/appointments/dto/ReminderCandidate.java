@@ -0,0 +1,16 @@
+package com.appointments.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * An appointment a policy reminder is due for, with the booking user's contact details
+ */
+public interface ReminderCandidate {
+    Long getAppointmentId();
+
+    LocalDateTime getStartTime();
+
+    String getEmail();
+
+    String getPhone();
+}
@@ -0,0 +1,34 @@
+package com.appointments.dto;
+
+import com.appointments.entity.Reminder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything needed to send a claimed reminder, read in one query per batch without loading entities
+ */
+public interface ReminderDispatchView {
+    Long getId();
+
+    Reminder.Type getType();
+
+    String getRecipient();
+
+    LocalDateTime getScheduledTime();
+
+    Integer getRetryCount();
+
+    /**
+     * Appointment start, UTC
+     */
+    LocalDateTime getStartTime();
+
+    String getStaffFirstName();
+
+    String getStaffLastName();
+
+    /**
+     * Time zone of the user who booked the appointment
+     */
+    String getTimezone();
+}
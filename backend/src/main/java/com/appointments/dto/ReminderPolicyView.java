@@ -0,0 +1,16 @@
+package com.appointments.dto;
+
+import com.appointments.entity.Reminder;
+
+/**
+ * An active reminder policy; {@code serviceId} is null for the defaults
+ */
+public interface ReminderPolicyView {
+    Long getId();
+
+    Long getServiceId();
+
+    Reminder.Type getType();
+
+    Integer getOffsetMinutes();
+}
@@ -0,0 +1,12 @@
+package com.appointments.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id and due time of a pending reminder, as loaded into the in-memory timer
+ */
+public interface ReminderScheduleEntry {
+    Long getId();
+
+    LocalDateTime getScheduledTime();
+}
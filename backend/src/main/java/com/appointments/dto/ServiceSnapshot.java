@@ -0,0 +1,33 @@
+package com.appointments.dto;
+
+import com.appointments.entity.Service;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Cacheable copy of a {@link Service}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String name;
+    private Integer durationMinutes;
+    private BigDecimal price;
+    private Boolean isActive;
+
+    public static ServiceSnapshot of(Service service) {
+        return new ServiceSnapshot(service.getId(), service.getName(), service.getDurationMinutes(),
+                service.getPrice(), service.getIsActive());
+    }
+}
@@ -0,0 +1,18 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotSearchResponse {
+    private Long serviceId;
+    private Integer durationMinutes;
+    private List<StaffSlot> slots;
+}
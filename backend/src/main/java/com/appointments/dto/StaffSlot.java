@@ -0,0 +1,18 @@
+package com.appointments.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffSlot {
+    private Long staffId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,30 @@
+package com.appointments.dto;
+
+import com.appointments.entity.StaffProfile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Cacheable copy of a {@link StaffProfile}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private Long userId;
+    private String timezone;
+    private Boolean isAvailable;
+
+    public static StaffSnapshot of(StaffProfile staff) {
+        return new StaffSnapshot(staff.getId(), staff.getUser().getId(), staff.getTimezone(), staff.getIsAvailable());
+    }
+}
@@ -0,0 +1,16 @@
+package com.appointments.dto;
+
+import com.appointments.entity.User;
+
+/**
+ * The account fields a token is checked against: a token is stale once any of them changes
+ */
+public interface UserAuthState {
+    Long getId();
+
+    User.Role getRole();
+
+    Boolean getIsActive();
+
+    Integer getTokenEpoch();
+}
@@ -0,0 +1,30 @@
+package com.appointments.dto;
+
+import com.appointments.entity.StaffWorkingHours;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalTime;
+
+/**
+ * Cacheable copy of an active {@link StaffWorkingHours} row
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkingHoursSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Integer dayOfWeek; // 0=Sunday, 6=Saturday
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    public static WorkingHoursSnapshot of(StaffWorkingHours hours) {
+        return new WorkingHoursSnapshot(hours.getDayOfWeek(), hours.getStartTime(), hours.getEndTime());
+    }
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_status", columnList = "status"),
     @Index(name = "idx_start_time", columnList = "start_time"),
     @Index(name = "idx_staff_status_time", columnList = "staff_id, status, start_time"),
-    @Index(name = "idx_user_status_time", columnList = "user_id, status, start_time")
+    @Index(name = "idx_user_status_time", columnList = "user_id, status, start_time"),
+    @Index(name = "idx_series", columnList = "series_id")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -26,7 +27,8 @@ import java.time.LocalDateTime;
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,6 +43,10 @@ public class Appointment {
     @JoinColumn(name = "service_id", nullable = false)
     private Service service;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "series_id")
+    private AppointmentSeries series;
+
     @Column(name = "start_time", nullable = false, columnDefinition = "DATETIME")
     private LocalDateTime startTime;
 
@@ -11,9 +11,11 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "calendar_events", indexes = {
     @Index(name = "idx_appointment", columnList = "appointment_id"),
-    @Index(name = "idx_sync_status", columnList = "syncStatus")
+    @Index(name = "idx_sync_status", columnList = "syncStatus"),
+    @Index(name = "idx_sync_status_next", columnList = "sync_status, next_sync_at")
 }, uniqueConstraints = {
-    @UniqueConstraint(name = "unique_provider_event", columnNames = {"provider", "external_event_id"})
+    @UniqueConstraint(name = "unique_provider_event", columnNames = {"provider", "external_event_id"}),
+    @UniqueConstraint(name = "unique_appointment_provider", columnNames = {"appointment_id", "provider"})
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -31,11 +33,18 @@ public class CalendarEvent {
     @JoinColumn(name = "appointment_id", nullable = false)
     private Appointment appointment;
 
+    /**
+     * User whose OAuth account owns the calendar (the staff member)
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_user_id")
+    private User accountUser;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Provider provider;
 
-    @Column(name = "external_event_id", nullable = false, length = 500)
+    @Column(name = "external_event_id", length = 500)
     private String externalEventId;
 
     @Column(name = "calendar_id", nullable = false)
@@ -47,7 +56,28 @@ public class CalendarEvent {
     @Builder.Default
     @Enumerated(EnumType.STRING)
     @Column(name = "sync_status", nullable = false)
-    private SyncStatus syncStatus = SyncStatus.SYNCED;
+    private SyncStatus syncStatus = SyncStatus.PENDING;
+
+    /**
+     * What the next push does; the event body is read from the appointment at push time
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "pending_action")
+    private PendingAction pendingAction;
+
+    /**
+     * Bumped by every change, so a push only marks the row synced if nothing changed while it was in flight
+     */
+    @Builder.Default
+    @Column(name = "sync_version", nullable = false)
+    private Integer syncVersion = 0;
+
+    @Builder.Default
+    @Column(name = "sync_attempts", nullable = false)
+    private Integer syncAttempts = 0;
+
+    @Column(name = "next_sync_at", columnDefinition = "DATETIME")
+    private LocalDateTime nextSyncAt;
 
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
@@ -65,6 +95,10 @@ public class CalendarEvent {
     }
 
     public enum SyncStatus {
-        SYNCED, PENDING, FAILED
+        SYNCED, PENDING, FAILED, DELETED
+    }
+
+    public enum PendingAction {
+        UPSERT, DELETE
     }
 }
@@ -48,6 +48,16 @@ public class OAuthToken {
     @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
 
+    /**
+     * Lease of a background refresh in flight, or the backoff after a failed one
+     */
+    @Column(name = "refresh_claimed_until", columnDefinition = "DATETIME")
+    private LocalDateTime refreshClaimedUntil;
+
+    @Builder.Default
+    @Column(name = "refresh_failures", nullable = false)
+    private Integer refreshFailures = 0;
+
     @Column(columnDefinition = "TEXT")
     private String scope;
 
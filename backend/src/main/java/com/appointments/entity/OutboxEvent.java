@@ -0,0 +1,80 @@
+package com.appointments.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect of a booking change, written in the booking transaction and delivered after commit
+ * by {@link com.appointments.scheduler.OutboxRelay}. Rows are inserted with batched JDBC by
+ * {@link com.appointments.service.OutboxService}.
+ */
+@Entity
+@Table(name = "outbox", indexes = {
+    @Index(name = "idx_topic_status_next", columnList = "topic, status, next_attempt_at"),
+    @Index(name = "idx_topic_aggregate", columnList = "topic, aggregate_id, id"),
+    @Index(name = "idx_status_processed", columnList = "status, processed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Handler the event is addressed to
+     */
+    @Column(nullable = false, length = 50)
+    private String topic;
+
+    /**
+     * Appointment the event belongs to; events of one aggregate and topic are delivered in id order
+     */
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private Type eventType;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false, columnDefinition = "DATETIME")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_until", columnDefinition = "DATETIME")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "DATETIME")
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at", columnDefinition = "DATETIME")
+    private LocalDateTime processedAt;
+
+    public enum Type {
+        APPOINTMENT_CREATED, APPOINTMENT_RESCHEDULED, APPOINTMENT_UPDATED, APPOINTMENT_CANCELLED
+    }
+
+    public enum Status {
+        PENDING, PROCESSING, DONE, FAILED
+    }
+}
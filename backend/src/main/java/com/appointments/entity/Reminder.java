@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
 @Table(name = "reminders", indexes = {
     @Index(name = "idx_scheduled", columnList = "scheduled_time, status"),
     @Index(name = "idx_appointment", columnList = "appointment_id"),
-    @Index(name = "idx_status", columnList = "status")
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_status_scheduled", columnList = "status, scheduled_time"),
+    @Index(name = "idx_appointment_offset", columnList = "appointment_id, type, offset_minutes")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -23,7 +25,8 @@ import java.time.LocalDateTime;
 public class Reminder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reminders_seq")
+    @SequenceGenerator(name = "reminders_seq", sequenceName = "reminders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,6 +37,18 @@ public class Reminder {
     @Column(nullable = false)
     private Type type;
 
+    /**
+     * Minutes before {@link #appointmentStart} this reminder was due, identifying the policy it came from
+     */
+    @Column(name = "offset_minutes")
+    private Integer offsetMinutes;
+
+    /**
+     * Appointment start time the reminder was computed from; a reschedule yields new attempts
+     */
+    @Column(name = "appointment_start", columnDefinition = "DATETIME")
+    private LocalDateTime appointmentStart;
+
     @Column(nullable = false)
     private String recipient;
 
@@ -48,6 +63,15 @@ public class Reminder {
     @Column(nullable = false)
     private Status status = Status.PENDING;
 
+    /**
+     * Node holding the dispatch lease while {@link Status#PROCESSING}
+     */
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_until", columnDefinition = "DATETIME")
+    private LocalDateTime claimedUntil;
+
     @Builder.Default
     @Column(name = "retry_count", nullable = false)
     private Integer retryCount = 0;
@@ -68,6 +92,6 @@ public class Reminder {
     }
 
     public enum Status {
-        PENDING, SENT, FAILED, CANCELLED
+        PENDING, PROCESSING, SENT, FAILED, CANCELLED
     }
 }
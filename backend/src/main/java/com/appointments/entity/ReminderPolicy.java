@@ -0,0 +1,53 @@
+package com.appointments.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A reminder sent {@code offsetMinutes} before every appointment of a service. Policies without a
+ * service apply to services that have none of their own.
+ */
+@Entity
+@Table(name = "reminder_policies", uniqueConstraints = {
+    @UniqueConstraint(name = "unique_service_type_offset", columnNames = {"service_id", "type", "offset_minutes"})
+})
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReminderPolicy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "service_id")
+    private Service service;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Reminder.Type type;
+
+    @Column(name = "offset_minutes", nullable = false)
+    private Integer offsetMinutes;
+
+    @Builder.Default
+    @Column(name = "is_active", nullable = false)
+    private Boolean isActive = true;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
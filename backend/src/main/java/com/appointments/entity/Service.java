@@ -1,5 +1,6 @@
 package com.appointments.entity;
 
+import com.appointments.entity.listener.ReferenceDataListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
     @Index(name = "idx_active", columnList = "isActive"),
     @Index(name = "idx_name", columnList = "name")
 })
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ReferenceDataListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,5 +1,6 @@
 package com.appointments.entity;
 
+import com.appointments.entity.listener.StaffScheduleListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -12,8 +13,10 @@ import java.time.LocalDateTime;
 @Table(name = "staff_breaks", indexes = {
     @Index(name = "idx_staff_time", columnList = "staff_id, start_time, end_time"),
     @Index(name = "idx_type", columnList = "breakType")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "unique_staff_external_event", columnNames = {"staff_id", "provider", "external_event_id"})
 })
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, StaffScheduleListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -46,6 +49,15 @@ public class StaffBreak {
     @Column(length = 255)
     private String reason;
 
+    /**
+     * Set for busy blocks imported from an external calendar
+     */
+    @Enumerated(EnumType.STRING)
+    private CalendarEvent.Provider provider;
+
+    @Column(name = "external_event_id", length = 500)
+    private String externalEventId;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -1,5 +1,6 @@
 package com.appointments.entity;
 
+import com.appointments.entity.listener.ReferenceDataListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_available", columnList = "isAvailable")
 })
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ReferenceDataListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
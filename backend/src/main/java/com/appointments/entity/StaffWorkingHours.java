@@ -1,5 +1,7 @@
 package com.appointments.entity;
 
+import com.appointments.entity.listener.ReferenceDataListener;
+import com.appointments.entity.listener.StaffScheduleListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -14,7 +16,7 @@ import java.time.LocalDateTime;
     @Index(name = "idx_staff_day", columnList = "staff_id, dayOfWeek"),
     @Index(name = "idx_active", columnList = "isActive")
 })
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ReferenceDataListener.class, StaffScheduleListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
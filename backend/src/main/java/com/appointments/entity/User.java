@@ -3,10 +3,10 @@ package com.appointments.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 @Entity
 @Table(name = "users", indexes = {
@@ -54,6 +54,13 @@ public class User {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    /**
+     * Embedded in access tokens; incrementing it invalidates every token issued before
+     */
+    @Builder.Default
+    @Column(name = "token_epoch", nullable = false)
+    private Integer tokenEpoch = 0;
+
     @Builder.Default
     @Column(name = "email_verified", nullable = false)
     private Boolean emailVerified = false;
@@ -62,7 +69,9 @@ public class User {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @LastModifiedDate
+    /**
+     * UTC, set on every write; AccountStateRegistry compares it against its last refresh
+     */
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
@@ -78,13 +87,11 @@ public class User {
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
-        if (updatedAt == null) {
-            updatedAt = LocalDateTime.now();
-        }
+        updatedAt = LocalDateTime.now(ZoneOffset.UTC);
     }
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now(ZoneOffset.UTC);
     }
 }
@@ -0,0 +1,90 @@
+package com.appointments.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Push-notification channel on one external calendar, with the provider's cursor for pulling
+ * only the changes made since the last sync
+ */
+@Entity
+@Table(name = "webhook_subscriptions", indexes = {
+    @Index(name = "idx_user_provider", columnList = "user_id, provider"),
+    @Index(name = "idx_channel", columnList = "channel_id"),
+    @Index(name = "idx_expiration", columnList = "expiration_time, is_active"),
+    @Index(name = "idx_sync_requested", columnList = "is_active, sync_requested_at")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookSubscription {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CalendarEvent.Provider provider;
+
+    @Column(name = "resource_id", nullable = false, length = 500)
+    private String resourceId;
+
+    /**
+     * Google channel id, or the Graph subscription id
+     */
+    @Column(name = "channel_id", nullable = false, length = 500)
+    private String channelId;
+
+    @Builder.Default
+    @Column(name = "calendar_id", nullable = false)
+    private String calendarId = "primary";
+
+    @Column(name = "client_state")
+    private String clientState;
+
+    /**
+     * Google nextSyncToken or Graph deltaLink; null until the first full sync
+     */
+    @Column(name = "sync_token", columnDefinition = "TEXT")
+    private String syncToken;
+
+    @Column(name = "sync_requested_at", columnDefinition = "DATETIME")
+    private LocalDateTime syncRequestedAt;
+
+    @Column(name = "sync_claimed_until", columnDefinition = "DATETIME")
+    private LocalDateTime syncClaimedUntil;
+
+    @Column(name = "last_synced_at", columnDefinition = "DATETIME")
+    private LocalDateTime lastSyncedAt;
+
+    @Column(name = "full_synced_at", columnDefinition = "DATETIME")
+    private LocalDateTime fullSyncedAt;
+
+    @Column(name = "expiration_time", nullable = false)
+    private LocalDateTime expirationTime;
+
+    @Builder.Default
+    @Column(name = "is_active", nullable = false)
+    private Boolean isActive = true;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
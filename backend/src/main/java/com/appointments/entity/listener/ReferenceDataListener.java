@@ -0,0 +1,47 @@
+package com.appointments.entity.listener;
+
+import com.appointments.cache.CacheNames;
+import com.appointments.entity.Service;
+import com.appointments.entity.StaffProfile;
+import com.appointments.entity.StaffWorkingHours;
+import com.appointments.util.TransactionHooks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Evicts cached reference data once a change to it commits; the cache manager broadcasts
+ * the eviction to other nodes. Must be listed before {@link StaffScheduleListener} so that
+ * working hours are evicted before the availability cache reloads them.
+ */
+@RequiredArgsConstructor
+public class ReferenceDataListener {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Service service) {
+            evictAfterCommit(CacheNames.SERVICES, service.getId());
+        } else if (entity instanceof StaffProfile staff) {
+            evictAfterCommit(CacheNames.STAFF, staff.getId());
+        } else if (entity instanceof StaffWorkingHours hours) {
+            evictAfterCommit(CacheNames.WORKING_HOURS, hours.getStaff().getId());
+        }
+    }
+
+    private void evictAfterCommit(String cacheName, Object key) {
+        TransactionHooks.afterCommit(() -> {
+            Cache cache = cacheManager.getObject().getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        });
+    }
+}
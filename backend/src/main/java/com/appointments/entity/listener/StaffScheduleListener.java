@@ -0,0 +1,36 @@
+package com.appointments.entity.listener;
+
+import com.appointments.entity.StaffBreak;
+import com.appointments.entity.StaffWorkingHours;
+import com.appointments.service.AvailabilityCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Keeps derived availability in step with working hour and break changes.
+ * Instantiated by Hibernate through Spring's bean container; the cache is resolved lazily
+ * because it depends on repositories that need the entity manager factory being built.
+ */
+@RequiredArgsConstructor
+public class StaffScheduleListener {
+
+    private final ObjectProvider<AvailabilityCache> availabilityCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onScheduleChange(Object entity) {
+        Long staffId = null;
+        if (entity instanceof StaffWorkingHours hours) {
+            staffId = hours.getStaff().getId();
+        } else if (entity instanceof StaffBreak staffBreak) {
+            staffId = staffBreak.getStaff().getId();
+        }
+        if (staffId != null) {
+            availabilityCache.getObject().onScheduleChanged(staffId);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.appointments.repository;
+
+import com.appointments.entity.Appointment;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters and keyset position for {@link AppointmentRepositoryCustom#findPage}.
+ * Exactly one of {@code userId} and {@code staffId} is expected.
+ */
+@Getter
+@Builder
+public class AppointmentPageQuery {
+    private final Long userId;
+    private final Long staffId;
+    private final Appointment.Status status;
+    /** Exclude cancelled appointments when no status is given */
+    private final boolean excludeCancelled;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    @Builder.Default
+    private final Sort.Direction direction = Sort.Direction.ASC;
+    /** Keyset position of the last row of the previous page, if any */
+    private final LocalDateTime afterStartTime;
+    private final Long afterId;
+    private final int limit;
+}
@@ -1,6 +1,11 @@
 package com.appointments.repository;
 
+import com.appointments.dto.AppointmentInterval;
+import com.appointments.dto.AppointmentStart;
+import com.appointments.dto.AppointmentView;
+import com.appointments.dto.ReminderCandidate;
 import com.appointments.entity.Appointment;
+import com.appointments.entity.Reminder;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -9,12 +14,30 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
+
+    /**
+     * Select list for {@link AppointmentView}; {@code a.user.id} and friends resolve to the FK columns without a join
+     */
+    String VIEW_COLUMNS = "a.id AS id, a.user.id AS userId, a.staff.id AS staffId, a.service.id AS serviceId, " +
+            "a.series.id AS seriesId, a.startTime AS startTime, a.endTime AS endTime, a.status AS status, " +
+            "a.notes AS notes, a.cancellationReason AS cancellationReason, a.createdAt AS createdAt";
+
+    /**
+     * Range scan for policy reminders: active appointments starting in {@code (from, to]} that have no live
+     * attempt yet for this type, offset and start time
+     */
+    String REMINDER_CANDIDATES = "SELECT a.id AS appointmentId, a.startTime AS startTime, u.email AS email, " +
+            "u.phone AS phone FROM Appointment a JOIN a.user u " +
+            "WHERE a.startTime > :from AND a.startTime <= :to AND a.status IN ('PENDING', 'CONFIRMED') " +
+            "AND NOT EXISTS (SELECT r.id FROM Reminder r WHERE r.appointment = a AND r.type = :type " +
+            "AND r.offsetMinutes = :offset AND r.appointmentStart = a.startTime AND r.status <> 'CANCELLED')";
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Appointment a WHERE a.staff.id = :staffId " +
            "AND a.status NOT IN ('CANCELLED') " +
@@ -27,8 +50,29 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         @Param("endTime") LocalDateTime endTime
     );
     
+    @Query("SELECT a.id AS id, a.startTime AS startTime, a.endTime AS endTime " +
+           "FROM Appointment a WHERE a.staff.id = :staffId " +
+           "AND a.status NOT IN ('CANCELLED') " +
+           "AND a.endTime > :from " +
+           "ORDER BY a.startTime ASC")
+    List<AppointmentInterval> findActiveIntervalsByStaffId(
+        @Param("staffId") Long staffId,
+        @Param("from") LocalDateTime from
+    );
+
+    @Query("SELECT a.id AS id, a.startTime AS startTime, a.endTime AS endTime " +
+           "FROM Appointment a WHERE a.staff.id = :staffId " +
+           "AND a.status NOT IN ('CANCELLED') " +
+           "AND a.startTime < :to AND a.endTime > :from " +
+           "ORDER BY a.startTime ASC")
+    List<AppointmentInterval> findActiveIntervalsByStaffIdAndRange(
+        @Param("staffId") Long staffId,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
+
     List<Appointment> findByUserId(Long userId);
-    
+
     List<Appointment> findByStaffId(Long staffId);
     
     @Query("SELECT a FROM Appointment a WHERE a.user.id = :userId " +
@@ -60,4 +104,37 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         @Param("from") LocalDateTime from,
         @Param("to") LocalDateTime to
     );
+
+    @Query(REMINDER_CANDIDATES + " AND a.service.id = :serviceId")
+    List<ReminderCandidate> findReminderCandidatesForService(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("type") Reminder.Type type,
+        @Param("offset") Integer offset,
+        @Param("serviceId") Long serviceId
+    );
+
+    @Query(REMINDER_CANDIDATES)
+    List<ReminderCandidate> findReminderCandidates(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("type") Reminder.Type type,
+        @Param("offset") Integer offset
+    );
+
+    @Query(REMINDER_CANDIDATES + " AND a.service.id NOT IN :serviceIds")
+    List<ReminderCandidate> findReminderCandidatesExcludingServices(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("type") Reminder.Type type,
+        @Param("offset") Integer offset,
+        @Param("serviceIds") Collection<Long> serviceIds
+    );
+
+    @Query("SELECT a.id AS id, a.service.id AS serviceId, a.startTime AS startTime FROM Appointment a " +
+           "WHERE a.startTime > :from AND a.startTime <= :to AND a.status IN ('PENDING', 'CONFIRMED')")
+    List<AppointmentStart> findActiveStartsBetween(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
 }
@@ -0,0 +1,13 @@
+package com.appointments.repository;
+
+import com.appointments.dto.AppointmentView;
+
+import java.util.List;
+
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * One page of appointments ordered by (start_time, id), continuing after the query's keyset position
+     */
+    List<AppointmentView> findPage(AppointmentPageQuery query);
+}
@@ -0,0 +1,142 @@
+package com.appointments.repository;
+
+import com.appointments.dto.AppointmentView;
+import com.appointments.entity.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset pagination. Filters are combined into a single JPQL statement so the
+ * (user_id|staff_id, status, start_time) indexes serve both the filter and the order;
+ * InnoDB secondary indexes end with the primary key, which covers the id tie-breaker.
+ */
+class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentView> findPage(AppointmentPageQuery query) {
+        boolean ascending = query.getDirection() == Sort.Direction.ASC;
+        StringBuilder jpql = new StringBuilder("SELECT ")
+                .append(AppointmentRepository.VIEW_COLUMNS)
+                .append(" FROM Appointment a WHERE ");
+        Map<String, Object> params = new LinkedHashMap<>();
+
+        if (query.getUserId() != null) {
+            jpql.append("a.user.id = :ownerId");
+            params.put("ownerId", query.getUserId());
+        } else {
+            jpql.append("a.staff.id = :ownerId");
+            params.put("ownerId", query.getStaffId());
+        }
+
+        if (query.getStatus() != null) {
+            jpql.append(" AND a.status = :status");
+            params.put("status", query.getStatus());
+        } else if (query.isExcludeCancelled()) {
+            jpql.append(" AND a.status <> :cancelled");
+            params.put("cancelled", Appointment.Status.CANCELLED);
+        }
+        if (query.getFrom() != null) {
+            jpql.append(" AND a.startTime >= :from");
+            params.put("from", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            jpql.append(" AND a.startTime < :to");
+            params.put("to", query.getTo());
+        }
+
+        if (query.getAfterStartTime() != null) {
+            String op = ascending ? ">" : "<";
+            jpql.append(" AND (a.startTime ").append(op).append(" :afterStart")
+                    .append(" OR (a.startTime = :afterStart AND a.id ").append(op).append(" :afterId))");
+            params.put("afterStart", query.getAfterStartTime());
+            params.put("afterId", query.getAfterId());
+        }
+
+        String order = ascending ? "ASC" : "DESC";
+        jpql.append(" ORDER BY a.startTime ").append(order).append(", a.id ").append(order);
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(jpql.toString(), Tuple.class);
+        params.forEach(typed::setParameter);
+        typed.setMaxResults(query.getLimit());
+
+        return typed.getResultList().stream()
+                .map(TupleView::new)
+                .collect(Collectors.toList());
+    }
+
+    private static final class TupleView implements AppointmentView {
+
+        private final Tuple tuple;
+
+        private TupleView(Tuple tuple) {
+            this.tuple = tuple;
+        }
+
+        @Override
+        public Long getId() {
+            return tuple.get("id", Long.class);
+        }
+
+        @Override
+        public Long getUserId() {
+            return tuple.get("userId", Long.class);
+        }
+
+        @Override
+        public Long getStaffId() {
+            return tuple.get("staffId", Long.class);
+        }
+
+        @Override
+        public Long getServiceId() {
+            return tuple.get("serviceId", Long.class);
+        }
+
+        @Override
+        public Long getSeriesId() {
+            return tuple.get("seriesId", Long.class);
+        }
+
+        @Override
+        public LocalDateTime getStartTime() {
+            return tuple.get("startTime", LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime getEndTime() {
+            return tuple.get("endTime", LocalDateTime.class);
+        }
+
+        @Override
+        public Appointment.Status getStatus() {
+            return tuple.get("status", Appointment.Status.class);
+        }
+
+        @Override
+        public String getNotes() {
+            return tuple.get("notes", String.class);
+        }
+
+        @Override
+        public String getCancellationReason() {
+            return tuple.get("cancellationReason", String.class);
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return tuple.get("createdAt", LocalDateTime.class);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.appointments.repository;
+
+import com.appointments.entity.AppointmentSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AppointmentSeriesRepository extends JpaRepository<AppointmentSeries, Long> {
+}
@@ -1,18 +1,97 @@
 package com.appointments.repository;
 
+import com.appointments.dto.CalendarPushItem;
 import com.appointments.entity.CalendarEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CalendarEventRepository extends JpaRepository<CalendarEvent, Long> {
     
-    Optional<CalendarEvent> findByAppointmentId(Long appointmentId);
+    List<CalendarEvent> findByAppointmentId(Long appointmentId);
     
     Optional<CalendarEvent> findByExternalEventIdAndProvider(
         String externalEventId, 
         CalendarEvent.Provider provider
     );
+
+    /**
+     * Which of the given provider event ids are appointments pushed from here
+     */
+    @Query("SELECT e.externalEventId FROM CalendarEvent e WHERE e.provider = :provider " +
+           "AND e.externalEventId IN :externalEventIds")
+    List<String> findPushedExternalEventIds(@Param("provider") CalendarEvent.Provider provider,
+                                            @Param("externalEventIds") List<String> externalEventIds);
+
+    @Query("SELECT e.provider FROM CalendarEvent e WHERE e.appointment.id = :appointmentId")
+    List<CalendarEvent.Provider> findProvidersByAppointmentId(@Param("appointmentId") Long appointmentId);
+
+    /**
+     * Queue the appointment's events for a push. A row already in flight keeps its lease as due time,
+     * so it is not pushed twice at once; the in-flight push sees the bumped version and requeues it.
+     */
+    @Modifying
+    @Query("UPDATE CalendarEvent e SET e.syncStatus = 'PENDING', e.pendingAction = :action, " +
+           "e.syncVersion = e.syncVersion + 1, " +
+           "e.nextSyncAt = CASE WHEN e.nextSyncAt > :now THEN e.nextSyncAt ELSE :now END " +
+           "WHERE e.appointment.id = :appointmentId")
+    int markPending(@Param("appointmentId") Long appointmentId, @Param("action") CalendarEvent.PendingAction action,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * Lock up to {@code limit} due events, skipping rows another node has locked
+     */
+    @Query(value = "SELECT id FROM calendar_events WHERE sync_status = 'PENDING' AND next_sync_at <= :now " +
+                   "ORDER BY next_sync_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE CalendarEvent e SET e.nextSyncAt = :until WHERE e.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("until") LocalDateTime until);
+
+    @Query("SELECT e.id AS id, a.id AS appointmentId, e.accountUser.id AS accountUserId, e.provider AS provider, " +
+           "e.calendarId AS calendarId, e.externalEventId AS externalEventId, e.pendingAction AS pendingAction, " +
+           "e.syncVersion AS syncVersion, e.syncAttempts AS syncAttempts, a.startTime AS startTime, " +
+           "a.endTime AS endTime, s.name AS serviceName, u.firstName AS customerFirstName, " +
+           "u.lastName AS customerLastName, a.notes AS notes " +
+           "FROM CalendarEvent e JOIN e.appointment a JOIN a.service s JOIN a.user u WHERE e.id IN :ids")
+    List<CalendarPushItem> findPushItems(@Param("ids") List<Long> ids);
+
+    /**
+     * Record a finished push, unless the appointment changed while it was in flight
+     */
+    @Modifying
+    @Query("UPDATE CalendarEvent e SET e.syncStatus = :status, e.pendingAction = null, " +
+           "e.externalEventId = :externalEventId, e.lastSyncedAt = :now, e.syncAttempts = 0, " +
+           "e.errorMessage = null, e.nextSyncAt = null " +
+           "WHERE e.id = :id AND e.syncVersion = :version")
+    int markSynced(@Param("id") Long id, @Param("version") Integer version,
+                   @Param("status") CalendarEvent.SyncStatus status,
+                   @Param("externalEventId") String externalEventId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CalendarEvent e SET e.syncStatus = 'FAILED', e.syncAttempts = e.syncAttempts + 1, " +
+           "e.errorMessage = :error, e.nextSyncAt = null " +
+           "WHERE e.id = :id AND e.syncVersion = :version")
+    int markFailed(@Param("id") Long id, @Param("version") Integer version, @Param("error") String error);
+
+    /**
+     * Keep the event queued for another push at {@code nextSyncAt}, remembering an event id the provider returned
+     */
+    @Modifying
+    @Query("UPDATE CalendarEvent e SET e.syncStatus = 'PENDING', " +
+           "e.externalEventId = COALESCE(:externalEventId, e.externalEventId), " +
+           "e.syncAttempts = e.syncAttempts + :attempts, e.errorMessage = :error, e.nextSyncAt = :nextSyncAt " +
+           "WHERE e.id = :id")
+    int requeue(@Param("id") Long id, @Param("externalEventId") String externalEventId,
+                @Param("attempts") int attempts, @Param("error") String error,
+                @Param("nextSyncAt") LocalDateTime nextSyncAt);
 }
@@ -1,9 +1,15 @@
 package com.appointments.repository;
 
+import com.appointments.dto.OAuthTokenState;
 import com.appointments.entity.OAuthToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,5 +17,51 @@ public interface OAuthTokenRepository extends JpaRepository<OAuthToken, Long> {
     
     Optional<OAuthToken> findByUserIdAndProvider(Long userId, OAuthToken.Provider provider);
     
+    @Query("SELECT t.provider FROM OAuthToken t WHERE t.user.id = :userId")
+    List<OAuthToken.Provider> findProvidersByUserId(@Param("userId") Long userId);
+
     void deleteByUserIdAndProvider(Long userId, OAuthToken.Provider provider);
+
+    @Query("SELECT t.id AS id, t.user.id AS userId, t.provider AS provider, t.accessToken AS accessToken, " +
+           "t.refreshToken AS refreshToken, t.expiresAt AS expiresAt, t.refreshFailures AS refreshFailures " +
+           "FROM OAuthToken t WHERE t.user.id = :userId AND t.provider = :provider")
+    Optional<OAuthTokenState> findState(@Param("userId") Long userId, @Param("provider") OAuthToken.Provider provider);
+
+    @Query("SELECT t.id AS id, t.user.id AS userId, t.provider AS provider, t.accessToken AS accessToken, " +
+           "t.refreshToken AS refreshToken, t.expiresAt AS expiresAt, t.refreshFailures AS refreshFailures " +
+           "FROM OAuthToken t WHERE t.id IN :ids ORDER BY t.expiresAt")
+    List<OAuthTokenState> findStates(@Param("ids") List<Long> ids);
+
+    /**
+     * Lock up to {@code limit} refreshable tokens expiring before {@code before}, soonest first, along
+     * idx_expires and skipping tokens another node is refreshing or that are backing off
+     */
+    @Query(value = "SELECT id FROM oauth_tokens WHERE expires_at < :before AND refresh_token IS NOT NULL " +
+                   "AND (refresh_claimed_until IS NULL OR refresh_claimed_until < :now) " +
+                   "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockExpiringIds(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now,
+                               @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OAuthToken t SET t.refreshClaimedUntil = :until WHERE t.id IN :ids")
+    int claimRefresh(@Param("ids") List<Long> ids, @Param("until") LocalDateTime until);
+
+    /**
+     * Store refreshed credentials, unless another node already replaced the token this refresh started from.
+     * Providers that do not rotate refresh tokens return none, so the old one is kept.
+     */
+    @Modifying
+    @Query("UPDATE OAuthToken t SET t.accessToken = :accessToken, " +
+           "t.refreshToken = COALESCE(:refreshToken, t.refreshToken), t.expiresAt = :expiresAt, " +
+           "t.refreshClaimedUntil = null, t.refreshFailures = 0 " +
+           "WHERE t.id = :id AND t.expiresAt = :previousExpiresAt")
+    int markRefreshed(@Param("id") Long id, @Param("previousExpiresAt") LocalDateTime previousExpiresAt,
+                      @Param("accessToken") String accessToken, @Param("refreshToken") String refreshToken,
+                      @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE OAuthToken t SET t.refreshFailures = t.refreshFailures + 1, t.refreshClaimedUntil = :retryAt " +
+           "WHERE t.id = :id")
+    int markRefreshFailed(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt);
 }
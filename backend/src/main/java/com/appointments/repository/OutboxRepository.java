@@ -0,0 +1,63 @@
+package com.appointments.repository;
+
+import com.appointments.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Lock up to {@code limit} deliverable events of a topic, skipping rows another node has locked.
+     * An event is deliverable once no earlier event of the same appointment is still pending or in flight,
+     * which keeps delivery ordered per appointment.
+     */
+    @Query(value = "SELECT o.id FROM outbox o WHERE o.topic = :topic AND o.status = 'PENDING' " +
+                   "AND o.next_attempt_at <= :now " +
+                   "AND NOT EXISTS (SELECT 1 FROM outbox p WHERE p.topic = o.topic AND p.aggregate_id = o.aggregate_id " +
+                   "AND p.id < o.id AND p.status IN ('PENDING', 'PROCESSING')) " +
+                   "ORDER BY o.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDeliverableIds(@Param("topic") String topic, @Param("now") LocalDateTime now,
+                                  @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = 'PROCESSING', o.claimedBy = :node, o.claimedUntil = :until " +
+           "WHERE o.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("node") String node, @Param("until") LocalDateTime until);
+
+    List<OutboxEvent> findByIdInOrderById(List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = 'DONE', o.processedAt = :now, o.attempts = o.attempts + 1, " +
+           "o.claimedBy = null, o.claimedUntil = null " +
+           "WHERE o.id IN :ids AND o.status = 'PROCESSING' AND o.claimedBy = :node")
+    int markDone(@Param("ids") List<Long> ids, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt, " +
+           "o.attempts = o.attempts + 1, o.lastError = :error, o.processedAt = :processedAt, " +
+           "o.claimedBy = null, o.claimedUntil = null " +
+           "WHERE o.id = :id AND o.status = 'PROCESSING' AND o.claimedBy = :node")
+    int markFailed(@Param("id") Long id, @Param("node") String node, @Param("status") OutboxEvent.Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error,
+                   @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Return events whose claiming node died before acknowledging them
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = 'PENDING', o.claimedBy = null, o.claimedUntil = null " +
+           "WHERE o.status = 'PROCESSING' AND o.claimedUntil < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.status = 'DONE' AND o.processedAt < :before")
+    int deleteDoneBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,27 @@
+package com.appointments.repository;
+
+import com.appointments.dto.ReminderPolicyView;
+import com.appointments.entity.ReminderPolicy;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReminderPolicyRepository extends JpaRepository<ReminderPolicy, Long> {
+
+    String VIEW_COLUMNS = "p.id AS id, p.service.id AS serviceId, p.type AS type, p.offsetMinutes AS offsetMinutes";
+
+    @Query("SELECT " + VIEW_COLUMNS + " FROM ReminderPolicy p WHERE p.isActive = true")
+    List<ReminderPolicyView> findActiveViews();
+
+    /**
+     * Active policies, row-locked until commit so that only one node materializes reminders at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ReminderPolicy p WHERE p.isActive = true ORDER BY p.id")
+    List<ReminderPolicy> lockActive();
+}
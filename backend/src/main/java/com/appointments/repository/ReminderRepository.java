@@ -1,7 +1,10 @@
 package com.appointments.repository;
 
+import com.appointments.dto.ReminderDispatchView;
+import com.appointments.dto.ReminderScheduleEntry;
 import com.appointments.entity.Reminder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,12 +15,61 @@ import java.util.List;
 @Repository
 public interface ReminderRepository extends JpaRepository<Reminder, Long> {
     
-    @Query("SELECT r FROM Reminder r WHERE r.scheduledTime <= :now " +
-           "AND r.status = 'PENDING' " +
-           "ORDER BY r.scheduledTime ASC")
-    List<Reminder> findDueReminders(@Param("now") LocalDateTime now);
-    
     List<Reminder> findByAppointmentId(Long appointmentId);
+
+    @Query("SELECT r.id FROM Reminder r WHERE r.appointment.id = :appointmentId AND r.status = 'PENDING'")
+    List<Long> findPendingIdsByAppointmentId(@Param("appointmentId") Long appointmentId);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = 'CANCELLED' WHERE r.id IN :ids AND r.status = 'PENDING'")
+    int cancelPending(@Param("ids") List<Long> ids);
+
+    @Query("SELECT r.id AS id, r.scheduledTime AS scheduledTime FROM Reminder r " +
+           "WHERE r.status = 'PENDING' AND r.scheduledTime <= :until")
+    List<ReminderScheduleEntry> findPendingScheduledBefore(@Param("until") LocalDateTime until);
+
+    /**
+     * Lock up to {@code limit} due reminders, skipping rows another node has locked
+     */
+    @Query(value = "SELECT id FROM reminders WHERE status = 'PENDING' AND scheduled_time <= :now " +
+                   "ORDER BY scheduled_time LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueReminderIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = 'PROCESSING', r.claimedBy = :node, r.claimedUntil = :until " +
+           "WHERE r.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("node") String node, @Param("until") LocalDateTime until);
+
+    /**
+     * Claimed reminders with everything needed to send them, in one round trip and without entity hydration
+     */
+    @Query("SELECT r.id AS id, r.type AS type, r.recipient AS recipient, r.scheduledTime AS scheduledTime, " +
+           "r.retryCount AS retryCount, a.startTime AS startTime, su.firstName AS staffFirstName, " +
+           "su.lastName AS staffLastName, u.timezone AS timezone " +
+           "FROM Reminder r JOIN r.appointment a JOIN a.user u JOIN a.staff s JOIN s.user su " +
+           "WHERE r.id IN :ids ORDER BY r.scheduledTime")
+    List<ReminderDispatchView> findDispatchViews(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = 'SENT', r.sentAt = :sentAt, r.claimedBy = null, r.claimedUntil = null " +
+           "WHERE r.id IN :ids AND r.status = 'PROCESSING' AND r.claimedBy = :node")
+    int markSent(@Param("ids") List<Long> ids, @Param("node") String node, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = :status, r.scheduledTime = :scheduledTime, " +
+           "r.retryCount = r.retryCount + 1, r.errorMessage = :error, r.claimedBy = null, r.claimedUntil = null " +
+           "WHERE r.id = :id AND r.status = 'PROCESSING' AND r.claimedBy = :node")
+    int markFailed(@Param("id") Long id, @Param("node") String node, @Param("status") Reminder.Status status,
+                   @Param("scheduledTime") LocalDateTime scheduledTime, @Param("error") String error);
+
+    /**
+     * Return reminders whose claiming node died before recording a result
+     */
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = 'PENDING', r.claimedBy = null, r.claimedUntil = null " +
+           "WHERE r.status = 'PROCESSING' AND r.claimedUntil < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
     
     @Query("SELECT r FROM Reminder r WHERE r.status = 'FAILED' " +
            "AND r.retryCount < :maxRetries")
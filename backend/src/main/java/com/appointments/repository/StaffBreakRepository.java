@@ -1,5 +1,6 @@
 package com.appointments.repository;
 
+import com.appointments.entity.CalendarEvent;
 import com.appointments.entity.StaffBreak;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,7 +14,7 @@ import java.util.List;
 public interface StaffBreakRepository extends JpaRepository<StaffBreak, Long> {
     
     @Query("SELECT sb FROM StaffBreak sb WHERE sb.staff.id = :staffId " +
-           "AND ((sb.breakType = 'ONE_TIME' AND sb.startTime >= :from AND sb.startTime < :to) " +
+           "AND ((sb.breakType = 'ONE_TIME' AND sb.startTime < :to AND sb.endTime > :from) " +
            "OR (sb.breakType = 'RECURRING' AND sb.dayOfWeek = :dayOfWeek))")
     List<StaffBreak> findByStaffIdAndDateRange(
         @Param("staffId") Long staffId,
@@ -21,4 +22,25 @@ public interface StaffBreakRepository extends JpaRepository<StaffBreak, Long> {
         @Param("to") LocalDateTime to,
         @Param("dayOfWeek") Integer dayOfWeek
     );
+
+    @Query("SELECT sb FROM StaffBreak sb WHERE sb.staff.id = :staffId " +
+           "AND ((sb.breakType = 'ONE_TIME' AND sb.startTime < :to AND sb.endTime > :from) " +
+           "OR sb.breakType = 'RECURRING')")
+    List<StaffBreak> findByStaffIdForWindow(
+        @Param("staffId") Long staffId,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
+
+    List<StaffBreak> findByStaffIdAndProviderAndExternalEventIdIn(
+        Long staffId,
+        CalendarEvent.Provider provider,
+        List<String> externalEventIds
+    );
+
+    List<StaffBreak> findByStaffIdAndProviderAndEndTimeAfter(
+        Long staffId,
+        CalendarEvent.Provider provider,
+        LocalDateTime endTime
+    );
 }
@@ -18,4 +18,10 @@ public interface StaffProfileRepository extends JpaRepository<StaffProfile, Long
     
     @Query("SELECT sp FROM StaffProfile sp WHERE sp.isAvailable = true AND sp.id = :staffId")
     Optional<StaffProfile> findAvailableStaffById(@Param("staffId") Long staffId);
+
+    @Query(value = "SELECT ss.staff_id FROM staff_services ss " +
+                   "JOIN staff_profiles sp ON sp.id = ss.staff_id " +
+                   "WHERE ss.service_id = :serviceId AND sp.is_available = TRUE",
+           nativeQuery = true)
+    List<Long> findAvailableStaffIdsByServiceId(@Param("serviceId") Long serviceId);
 }
@@ -1,9 +1,15 @@
 package com.appointments.repository;
 
+import com.appointments.dto.UserAuthState;
 import com.appointments.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +20,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     
     Optional<User> findByEmailAndIsActiveTrue(String email);
+
+    /**
+     * Leaves updated_at alone: a rehash is not an account change and must not invalidate tokens
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
+
+    /**
+     * Accounts whose tokens may no longer match them: changed since {@code since}, deactivated, or epoch-bumped
+     */
+    @Query("SELECT u.id AS id, u.role AS role, u.isActive AS isActive, u.tokenEpoch AS tokenEpoch FROM User u " +
+           "WHERE u.updatedAt >= :since OR u.isActive = false OR u.tokenEpoch > 0")
+    List<UserAuthState> findAuthStatesForStartup(@Param("since") LocalDateTime since);
+
+    @Query("SELECT u.id AS id, u.role AS role, u.isActive AS isActive, u.tokenEpoch AS tokenEpoch FROM User u " +
+           "WHERE u.updatedAt >= :since")
+    List<UserAuthState> findAuthStatesChangedSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,83 @@
+package com.appointments.repository;
+
+import com.appointments.dto.CalendarSyncItem;
+import com.appointments.entity.CalendarEvent;
+import com.appointments.entity.WebhookSubscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookSubscriptionRepository extends JpaRepository<WebhookSubscription, Long> {
+
+    /**
+     * Note a change notification. Only the first one since the last fetch sets the time, so a burst
+     * of notifications waits for one debounce window and leads to a single fetch.
+     *
+     * @return 0 if no active subscription has the channel id and client state
+     */
+    @Modifying
+    @Query("UPDATE WebhookSubscription w SET w.syncRequestedAt = COALESCE(w.syncRequestedAt, :now) " +
+           "WHERE w.channelId = :channelId AND w.provider = :provider AND w.isActive = true " +
+           "AND (w.clientState IS NULL OR w.clientState = :clientState)")
+    int requestSync(@Param("provider") CalendarEvent.Provider provider, @Param("channelId") String channelId,
+                    @Param("clientState") String clientState, @Param("now") LocalDateTime now);
+
+    /**
+     * Lock up to {@code limit} subscriptions whose first notification is older than {@code readyBefore}
+     * and which no worker is fetching, skipping rows another node has locked
+     */
+    @Query(value = "SELECT id FROM webhook_subscriptions WHERE is_active = TRUE AND sync_requested_at <= :readyBefore " +
+                   "AND (sync_claimed_until IS NULL OR sync_claimed_until < :now) " +
+                   "ORDER BY sync_requested_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueIds(@Param("readyBefore") LocalDateTime readyBefore, @Param("now") LocalDateTime now,
+                          @Param("limit") int limit);
+
+    /**
+     * Take the subscriptions for a fetch. Notifications arriving from now on request another one.
+     */
+    @Modifying
+    @Query("UPDATE WebhookSubscription w SET w.syncRequestedAt = null, w.syncClaimedUntil = :until WHERE w.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("until") LocalDateTime until);
+
+    @Query("SELECT w.id AS id, w.user.id AS userId, w.provider AS provider, w.calendarId AS calendarId, " +
+           "w.syncToken AS syncToken FROM WebhookSubscription w WHERE w.id IN :ids")
+    List<CalendarSyncItem> findSyncItems(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE WebhookSubscription w SET w.syncToken = :syncToken, w.lastSyncedAt = :now, " +
+           "w.fullSyncedAt = CASE WHEN :fullSync = true THEN :now ELSE w.fullSyncedAt END, " +
+           "w.syncClaimedUntil = null WHERE w.id = :id")
+    int markSynced(@Param("id") Long id, @Param("syncToken") String syncToken, @Param("fullSync") boolean fullSync,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WebhookSubscription w SET w.syncClaimedUntil = null WHERE w.id = :id")
+    int release(@Param("id") Long id);
+
+    /**
+     * Drop the cursor of subscriptions not fully listed since {@code before} and request a sync,
+     * which then lists their calendars afresh
+     */
+    @Modifying
+    @Query("UPDATE WebhookSubscription w SET w.syncToken = null, " +
+           "w.syncRequestedAt = COALESCE(w.syncRequestedAt, :now) " +
+           "WHERE w.isActive = true AND (w.fullSyncedAt IS NULL OR w.fullSyncedAt < :before) " +
+           "AND (w.syncClaimedUntil IS NULL OR w.syncClaimedUntil < :now)")
+    int requestFullSync(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    /**
+     * Release a failed fetch and request it again at {@code retryAt}, or earlier if a notification already did
+     */
+    @Modifying
+    @Query("UPDATE WebhookSubscription w SET w.syncClaimedUntil = null, " +
+           "w.syncRequestedAt = CASE WHEN w.syncRequestedAt IS NOT NULL AND w.syncRequestedAt < :retryAt " +
+           "THEN w.syncRequestedAt ELSE :retryAt END WHERE w.id = :id")
+    int requeue(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt);
+}
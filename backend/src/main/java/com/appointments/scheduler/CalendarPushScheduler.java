@@ -0,0 +1,230 @@
+package com.appointments.scheduler;
+
+import com.appointments.calendar.CalendarProvider;
+import com.appointments.calendar.CalendarPushOperation;
+import com.appointments.calendar.CalendarPushResult;
+import com.appointments.calendar.TokenRefreshException;
+import com.appointments.dto.CalendarPushItem;
+import com.appointments.entity.CalendarEvent;
+import com.appointments.service.CalendarSyncService;
+import com.appointments.service.OAuthTokenManager;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends queued calendar changes in provider batches.
+ *
+ * A run claims due events, groups them by calendar account and provider, and sends each group in
+ * chunks of the provider's batch limit (50 for Google, 20 for Microsoft Graph). Chunks go out on a
+ * small pool, so one slow account does not hold up the rest. Runs start a short linger after a
+ * change commits, letting changes made close together share a batch, plus a periodic poll for
+ * retries and changes queued on other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CalendarPushScheduler {
+
+    private final CalendarSyncService calendarSyncService;
+    private final OAuthTokenManager oAuthTokenManager;
+    private final List<CalendarProvider> providerList;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${calendar.push.claim-size:500}")
+    private int claimSize;
+
+    @Value("${calendar.push.linger-ms:200}")
+    private long lingerMillis;
+
+    @Value("${calendar.push.concurrency:4}")
+    private int concurrency;
+
+    private final Map<CalendarEvent.Provider, CalendarProvider> providers = new EnumMap<>(CalendarEvent.Provider.class);
+    private final AtomicBoolean runRequested = new AtomicBoolean();
+    private final ScheduledExecutorService runner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calendar-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void init() {
+        providerList.forEach(provider -> providers.put(provider.getProvider(), provider));
+        senders = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "calendar-push-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+        calendarSyncService.onPending(this::requestRun);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdown();
+        senders.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${calendar.push.poll-interval-ms:10000}")
+    public void poll() {
+        requestRun();
+    }
+
+    private void requestRun() {
+        if (runRequested.compareAndSet(false, true)) {
+            runner.schedule(this::pushDue, lingerMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void pushDue() {
+        runRequested.set(false);
+        try {
+            List<CalendarPushItem> claimed;
+            do {
+                claimed = calendarSyncService.claimDue(LocalDateTime.now(ZoneOffset.UTC), claimSize);
+                pushAll(claimed);
+            } while (claimed.size() == claimSize);
+        } catch (Exception e) {
+            log.error("Error pushing calendar events", e);
+        }
+    }
+
+    private void pushAll(List<CalendarPushItem> claimed) {
+        Map<String, List<CalendarPushItem>> byAccount = new LinkedHashMap<>();
+        for (CalendarPushItem item : claimed) {
+            byAccount.computeIfAbsent(item.getAccountUserId() + ":" + item.getProvider(), key -> new ArrayList<>())
+                    .add(item);
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<CalendarPushItem> items : byAccount.values()) {
+            CalendarPushItem first = items.get(0);
+            CalendarProvider provider = providers.get(first.getProvider());
+            if (provider == null) {
+                record(items, Collections.nCopies(items.size(),
+                        new CalendarPushResult(false, null, false, "No client for " + first.getProvider())));
+                continue;
+            }
+            Optional<String> token;
+            try {
+                token = oAuthTokenManager.getAccessToken(first.getAccountUserId(), first.getProvider());
+            } catch (TokenRefreshException e) {
+                record(items, Collections.nCopies(items.size(),
+                        new CalendarPushResult(false, null, !e.isPermanent(), e.getMessage())));
+                continue;
+            }
+            if (token.isEmpty()) {
+                record(items, Collections.nCopies(items.size(),
+                        new CalendarPushResult(false, null, false, "Calendar account is not linked")));
+                continue;
+            }
+            String accessToken = token.get();
+            for (int from = 0; from < items.size(); from += provider.getMaxBatchSize()) {
+                List<CalendarPushItem> chunk = items.subList(from, Math.min(from + provider.getMaxBatchSize(), items.size()));
+                chunks.add(CompletableFuture.runAsync(() -> pushChunk(provider, accessToken, chunk), senders));
+            }
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void pushChunk(CalendarProvider provider, String accessToken, List<CalendarPushItem> chunk) {
+        List<CalendarPushItem> items = new ArrayList<>(chunk.size());
+        List<CalendarPushOperation> operations = new ArrayList<>(chunk.size());
+        List<CalendarPushItem> nothingToDo = new ArrayList<>();
+        for (CalendarPushItem item : chunk) {
+            CalendarPushOperation operation = toOperation(item);
+            if (operation == null) {
+                nothingToDo.add(item);
+            } else {
+                items.add(item);
+                operations.add(operation);
+            }
+        }
+        if (!nothingToDo.isEmpty()) {
+            record(nothingToDo, Collections.nCopies(nothingToDo.size(), CalendarPushResult.ok(null)));
+        }
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        String providerTag = provider.getProvider().name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<CalendarPushResult> results;
+        try {
+            results = provider.push(accessToken, operations);
+        } catch (RuntimeException e) {
+            log.error("Calendar push to {} failed", providerTag, e);
+            results = Collections.nCopies(operations.size(), CalendarPushResult.batchFailed(e.toString()));
+        }
+        sample.stop(meterRegistry.timer("calendar.push.batch", "provider", providerTag));
+        DistributionSummary.builder("calendar.push.batch.size")
+                .tag("provider", providerTag)
+                .register(meterRegistry)
+                .record(operations.size());
+        if (results.stream().anyMatch(CalendarPushResult::unauthorized)) {
+            // Revoked, or replaced on another node: reload from oauth_tokens before the retry
+            oAuthTokenManager.evict(items.get(0).getAccountUserId(), provider.getProvider());
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            meterRegistry.counter("calendar.push.operations", "provider", providerTag,
+                    "action", operations.get(i).action().name().toLowerCase(),
+                    "result", results.get(i).success() ? "success" : "failure").increment();
+        }
+        record(items, results);
+    }
+
+    private void record(List<CalendarPushItem> items, List<CalendarPushResult> results) {
+        try {
+            calendarSyncService.recordResults(items, results);
+        } catch (Exception e) {
+            // The lease expires and the events are pushed again
+            log.error("Failed to record calendar push results", e);
+        }
+    }
+
+    /**
+     * The call that brings the calendar up to date, or null when there is nothing to send
+     */
+    private static CalendarPushOperation toOperation(CalendarPushItem item) {
+        CalendarPushOperation.Action action;
+        if (item.getPendingAction() == CalendarEvent.PendingAction.DELETE) {
+            if (item.getExternalEventId() == null) {
+                return null;
+            }
+            action = CalendarPushOperation.Action.DELETE;
+        } else {
+            action = item.getExternalEventId() == null
+                    ? CalendarPushOperation.Action.CREATE : CalendarPushOperation.Action.UPDATE;
+        }
+        String customer = (Objects.toString(item.getCustomerFirstName(), "") + " "
+                + Objects.toString(item.getCustomerLastName(), "")).trim();
+        return new CalendarPushOperation(action, item.getAppointmentId(), item.getCalendarId(),
+                item.getExternalEventId(), item.getServiceName() + (customer.isEmpty() ? "" : " with " + customer),
+                Objects.toString(item.getNotes(), ""), item.getStartTime(), item.getEndTime());
+    }
+}
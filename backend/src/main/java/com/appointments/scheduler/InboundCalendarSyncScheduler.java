@@ -0,0 +1,166 @@
+package com.appointments.scheduler;
+
+import com.appointments.calendar.CalendarChanges;
+import com.appointments.calendar.CalendarFetchException;
+import com.appointments.calendar.CalendarProvider;
+import com.appointments.dto.CalendarSyncItem;
+import com.appointments.entity.CalendarEvent;
+import com.appointments.service.InboundCalendarSyncService;
+import com.appointments.service.OAuthTokenManager;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pulls changes from external calendars whose webhooks fired.
+ *
+ * A run starts one debounce window after a notification, claims the subscriptions whose window
+ * has passed and fetches each one's changes since its sync token on a small pool. Notifications
+ * arriving during the window are absorbed into the same fetch. A periodic poll picks up
+ * notifications received by other nodes and retries.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InboundCalendarSyncScheduler {
+
+    private final InboundCalendarSyncService inboundCalendarSyncService;
+    private final OAuthTokenManager oAuthTokenManager;
+    private final List<CalendarProvider> providerList;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${calendar.inbound.claim-size:50}")
+    private int claimSize;
+
+    @Value("${calendar.inbound.concurrency:4}")
+    private int concurrency;
+
+    @Value("${calendar.inbound.window-days:180}")
+    private long windowDays;
+
+    private final Map<CalendarEvent.Provider, CalendarProvider> providers = new EnumMap<>(CalendarEvent.Provider.class);
+    private final AtomicBoolean runRequested = new AtomicBoolean();
+    private final ScheduledExecutorService runner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calendar-inbound");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ExecutorService fetchers;
+
+    @PostConstruct
+    public void init() {
+        providerList.forEach(provider -> providers.put(provider.getProvider(), provider));
+        fetchers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "calendar-inbound-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        inboundCalendarSyncService.onRequested(this::requestRun);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdown();
+        fetchers.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${calendar.inbound.poll-interval-ms:5000}")
+    public void poll() {
+        requestRun();
+    }
+
+    @Scheduled(cron = "${calendar.inbound.full-sync-cron:0 30 3 * * *}")
+    public void requestFullSyncs() {
+        try {
+            int requested = inboundCalendarSyncService.requestFullSyncs();
+            if (requested > 0) {
+                log.info("Requested full calendar sync for {} subscriptions", requested);
+            }
+        } catch (Exception e) {
+            log.error("Failed to request full calendar syncs", e);
+        }
+    }
+
+    private void requestRun() {
+        if (runRequested.compareAndSet(false, true)) {
+            runner.schedule(this::syncDue, inboundCalendarSyncService.getDebounceMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void syncDue() {
+        runRequested.set(false);
+        try {
+            List<CalendarSyncItem> claimed;
+            do {
+                claimed = inboundCalendarSyncService.claimDue(LocalDateTime.now(ZoneOffset.UTC), claimSize);
+                List<CompletableFuture<Void>> fetches = new ArrayList<>(claimed.size());
+                for (CalendarSyncItem item : claimed) {
+                    fetches.add(CompletableFuture.runAsync(() -> sync(item), fetchers));
+                }
+                CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0])).join();
+            } while (claimed.size() == claimSize);
+        } catch (Exception e) {
+            log.error("Error syncing external calendars", e);
+        }
+    }
+
+    private void sync(CalendarSyncItem item) {
+        String providerTag = item.getProvider().name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
+        try {
+            CalendarProvider provider = providers.get(item.getProvider());
+            Optional<String> token = oAuthTokenManager.getAccessToken(item.getUserId(), item.getProvider());
+            if (provider == null || token.isEmpty()) {
+                result = "unlinked";
+                inboundCalendarSyncService.release(item.getId());
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            CalendarChanges changes = provider.fetchChanges(token.get(), item.getCalendarId(),
+                    item.getSyncToken(), now, now.plusDays(windowDays));
+            DistributionSummary.builder("calendar.inbound.changes")
+                    .tag("provider", providerTag)
+                    .tag("full", String.valueOf(changes.fullSync()))
+                    .register(meterRegistry)
+                    .record(changes.events().size());
+            inboundCalendarSyncService.applyChanges(item, changes);
+        } catch (Exception e) {
+            result = "failure";
+            if (e instanceof CalendarFetchException fetchFailure && fetchFailure.isUnauthorized()) {
+                // Revoked, or replaced on another node: reload from oauth_tokens before the retry
+                oAuthTokenManager.evict(item.getUserId(), item.getProvider());
+            }
+            log.warn("Calendar sync of subscription {} from {} failed: {}", item.getId(), providerTag, e.toString());
+            try {
+                inboundCalendarSyncService.requeue(item.getId());
+            } catch (Exception requeueFailure) {
+                // The lease expires and the subscription is claimed again
+                log.error("Failed to requeue calendar sync of subscription {}", item.getId(), requeueFailure);
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("calendar.inbound.fetch", "provider", providerTag, "result", result));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.appointments.scheduler;
+
+import com.appointments.entity.OutboxEvent;
+import com.appointments.service.OutboxHandler;
+import com.appointments.service.OutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the outbox: claim a batch, hand each event to its topic's handler, acknowledge.
+ *
+ * Each topic has its own relay thread, so a slow provider only delays its own events. A run is
+ * requested when a transaction that published to the topic commits, and by a poll that also
+ * picks up retries and events published on other nodes. Requests arriving during a run coalesce
+ * into a single follow-up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxService outboxService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (OutboxHandler handler : outboxService.getHandlers()) {
+            lanes.put(handler.getTopic(), new Lane(handler));
+        }
+        outboxService.onPublished(this::requestRun);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(lane -> lane.executor.shutdown());
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            outboxService.releaseExpiredClaims();
+        } catch (Exception e) {
+            log.error("Failed to release expired outbox claims", e);
+        }
+        lanes.keySet().forEach(this::requestRun);
+    }
+
+    private void requestRun(String topic) {
+        Lane lane = lanes.get(topic);
+        if (lane != null && lane.runRequested.compareAndSet(false, true)) {
+            lane.executor.execute(() -> drain(lane));
+        }
+    }
+
+    private void drain(Lane lane) {
+        lane.runRequested.set(false);
+        try {
+            List<OutboxEvent> batch;
+            do {
+                batch = outboxService.claim(lane.handler.getTopic(), LocalDateTime.now(ZoneOffset.UTC), batchSize);
+                List<Long> done = new ArrayList<>(batch.size());
+                for (OutboxEvent event : batch) {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    String result = "success";
+                    try {
+                        lane.handler.handle(event);
+                        done.add(event.getId());
+                    } catch (Exception e) {
+                        result = "failure";
+                        log.warn("Outbox handler {} failed for event {}: {}", lane.handler.getTopic(), event.getId(),
+                                e.toString());
+                        outboxService.markFailed(event, e.toString());
+                    }
+                    sample.stop(meterRegistry.timer("outbox.handle", "topic", lane.handler.getTopic(), "result", result));
+                }
+                outboxService.markDone(done);
+                // Acknowledged events may unblock later events of the same appointments, so go again until empty
+            } while (!batch.isEmpty());
+        } catch (Exception e) {
+            log.error("Error relaying outbox topic {}", lane.handler.getTopic(), e);
+        }
+    }
+
+    private static final class Lane {
+        private final OutboxHandler handler;
+        private final AtomicBoolean runRequested = new AtomicBoolean();
+        private final ExecutorService executor;
+
+        private Lane(OutboxHandler handler) {
+            this.handler = handler;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "outbox-" + handler.getTopic());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
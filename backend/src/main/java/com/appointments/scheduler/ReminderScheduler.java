@@ -1,24 +1,64 @@
 package com.appointments.scheduler;
 
 import com.appointments.service.ReminderService;
+import com.appointments.service.ReminderTimer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ReminderScheduler {
 
     private final ReminderService reminderService;
+    private final ReminderTimer reminderTimer;
 
     /**
-     * Process due reminders every minute
+     * Runs are serialized on one thread; requests arriving during a run coalesce into a single follow-up
      */
-    @Scheduled(cron = "0 * * * * *")
-    public void processReminders() {
-        log.debug("Running reminder scheduler");
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reminder-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean runRequested = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        reminderTimer.onDue(this::requestRun);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Safety sweep for reminders the timer does not hold: created on other nodes inside the
+     * current window, or left behind by a crash
+     */
+    @Scheduled(fixedDelayString = "${reminders.sweep-interval-ms:300000}")
+    public void sweep() {
+        log.debug("Running reminder sweep");
+        requestRun();
+    }
+
+    private void requestRun() {
+        if (runRequested.compareAndSet(false, true)) {
+            dispatcher.execute(this::processReminders);
+        }
+    }
+
+    private void processReminders() {
+        runRequested.set(false);
         try {
             reminderService.processDueReminders();
         } catch (Exception e) {
@@ -0,0 +1,93 @@
+package com.appointments.security;
+
+import com.appointments.dto.UserAuthState;
+import com.appointments.entity.User;
+import com.appointments.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * In-memory copy of the accounts whose tokens may be stale, so requests can be authenticated
+ * from token claims without a database lookup.
+ *
+ * Only users that were deactivated, epoch-bumped, or changed within one access-token lifetime
+ * are tracked; everyone else is known to still match the claims they were issued with. The map
+ * is refreshed from {@code users.updated_at}, so a change takes effect on every node within
+ * {@code auth.account-state.refresh-ms}. An entry expires once it has not been read or
+ * refreshed for a token lifetime, by which time every token issued before the change has expired.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccountStateRegistry {
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    /**
+     * Re-read window overlapping the previous refresh, covering commit latency and clock skew between nodes
+     */
+    @Value("${auth.account-state.overlap-seconds:60}")
+    private long overlapSeconds;
+
+    private Cache<Long, State> states;
+    private volatile LocalDateTime lastRefresh;
+
+    @PostConstruct
+    public void init() {
+        states = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(tokenLifetimeMs).plusSeconds(overlapSeconds))
+                .build();
+    }
+
+    /**
+     * @return false if the account was deactivated, or its role or epoch changed, since the token was issued
+     */
+    public boolean isCurrent(AuthenticatedUser principal) {
+        if (lastRefresh == null) {
+            refresh();
+        }
+        State state = states.getIfPresent(principal.getId());
+        return state == null
+                || (state.active && state.role == principal.getRole() && state.epoch == principal.getTokenEpoch());
+    }
+
+    /**
+     * Apply a change made on this node without waiting for the next refresh
+     */
+    public void update(Long userId, User.Role role, boolean active, int epoch) {
+        states.put(userId, new State(role, active, epoch));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.account-state.refresh-ms:10000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<UserAuthState> changed = lastRefresh == null
+                ? userRepository.findAuthStatesForStartup(now.minusNanos(tokenLifetimeMs * 1_000_000))
+                : userRepository.findAuthStatesChangedSince(lastRefresh.minusSeconds(overlapSeconds));
+        for (UserAuthState row : changed) {
+            update(row.getId(), row.getRole(), Boolean.TRUE.equals(row.getIsActive()),
+                    row.getTokenEpoch() != null ? row.getTokenEpoch() : 0);
+        }
+        if (lastRefresh == null) {
+            log.info("Loaded token state for {} accounts", changed.size());
+        }
+        lastRefresh = now;
+    }
+
+    private record State(User.Role role, boolean active, int epoch) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.appointments.security;
+
+import com.appointments.entity.User;
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Security principal carrying the user id, role and token epoch.
+ * Built from the database at login and from token claims on every other request.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails {
+
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_EPOCH = "epoch";
+    static final String CLAIM_TYPE = "typ";
+    static final String TYPE_REFRESH = "refresh";
+
+    private final Long id;
+    private final String email;
+    private final User.Role role;
+    private final int tokenEpoch;
+    private final String password;
+    private final boolean enabled;
+
+    /**
+     * The {@code jti} and expiry of the token this principal was read from; null when loaded from the database
+     */
+    private final String tokenId;
+    private final Date tokenExpiresAt;
+
+    private AuthenticatedUser(Long id, String email, User.Role role, int tokenEpoch, String password, boolean enabled,
+                              String tokenId, Date tokenExpiresAt) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.tokenEpoch = tokenEpoch;
+        this.password = password;
+        this.enabled = enabled;
+        this.tokenId = tokenId;
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(),
+                user.getTokenEpoch() != null ? user.getTokenEpoch() : 0,
+                user.getPasswordHash(), Boolean.TRUE.equals(user.getIsActive()), null, null);
+    }
+
+    /**
+     * @return the principal, or null if the token predates the id/role/epoch claims
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Number id = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        Number epoch = claims.get(CLAIM_EPOCH, Number.class);
+        if (id == null || role == null || epoch == null) {
+            return null;
+        }
+        return new AuthenticatedUser(id.longValue(), claims.getSubject(), User.Role.valueOf(role),
+                epoch.intValue(), null, true, claims.getId(), claims.getExpiration());
+    }
+
+    /**
+     * Copy with a new password hash, returned after a rehash on login
+     */
+    public AuthenticatedUser withPassword(String encodedPassword) {
+        return new AuthenticatedUser(id, email, role, tokenEpoch, encodedPassword, enabled, tokenId, tokenExpiresAt);
+    }
+
+    public boolean isAdmin() {
+        return role == User.Role.ADMIN;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package com.appointments.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +25,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final AccountStateRegistry accountStateRegistry;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -32,15 +35,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Verified once per request; repeat requests with the same token hit the claims cache
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : null;
+            if (claims != null && tokenProvider.isRefreshToken(claims)) {
+                log.debug("Refresh token presented as access token for user {}", claims.getSubject());
+                claims = null;
+            } else if (claims != null && tokenRevocationService.isRevoked(claims.getId())) {
+                log.debug("Rejecting revoked token for user {}", claims.getSubject());
+                claims = null;
+            }
+            if (claims != null) {
+                UserDetails userDetails = AuthenticatedUser.fromClaims(claims);
+                if (userDetails == null) {
+                    // Token issued before the id/role/epoch claims existed
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                } else if (!accountStateRegistry.isCurrent((AuthenticatedUser) userDetails)) {
+                    log.debug("Rejecting stale token for user {}", claims.getSubject());
+                    userDetails = null;
+                }
 
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
@@ -1,16 +1,25 @@
 package com.appointments.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
@@ -25,66 +34,140 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-expiration}")
     private long jwtRefreshExpirationInMs;
 
+    @Value("${jwt.cache.max-size:100000}")
+    private long claimsCacheMaxSize;
+
+    @Value("${jwt.cache.max-ttl-seconds:300}")
+    private long claimsCacheMaxTtlSeconds;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    /**
+     * Verified claims keyed by the SHA-256 of the token; each entry expires no later than the token itself
+     */
+    private Cache<String, Claims> verifiedClaims;
+
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(claimsCacheMaxTtlSeconds);
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                                claims.getExpiration().getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     public String generateToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
-
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+        return generateToken((AuthenticatedUser) authentication.getPrincipal());
     }
 
-    public String generateTokenFromUsername(String username) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
+    /**
+     * Access token carrying the user id, role and account epoch, so requests can be authenticated without a lookup
+     */
+    public String generateToken(AuthenticatedUser user) {
+        return buildToken(user, jwtExpirationInMs).compact();
+    }
 
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+    /**
+     * Long-lived token for obtaining new access tokens; never accepted as an access token
+     */
+    public String generateRefreshToken(AuthenticatedUser user) {
+        return buildToken(user, jwtRefreshExpirationInMs)
+                .claim(AuthenticatedUser.CLAIM_TYPE, AuthenticatedUser.TYPE_REFRESH)
                 .compact();
     }
 
-    public String generateRefreshToken(String username) {
+    /**
+     * True for refresh tokens, which the authentication filter must reject
+     */
+    public boolean isRefreshToken(Claims claims) {
+        return AuthenticatedUser.TYPE_REFRESH.equals(claims.get(AuthenticatedUser.CLAIM_TYPE, String.class));
+    }
+
+    private JwtBuilder buildToken(AuthenticatedUser user, long lifetimeMs) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtRefreshExpirationInMs);
+        Date expiryDate = new Date(now.getTime() + lifetimeMs);
 
         return Jwts.builder()
-                .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .setSubject(user.getUsername())
+                .claim(AuthenticatedUser.CLAIM_USER_ID, user.getId())
+                .claim(AuthenticatedUser.CLAIM_ROLE, user.getRole().name())
+                .claim(AuthenticatedUser.CLAIM_EPOCH, user.getTokenEpoch())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+                .signWith(getSigningKey(), SignatureAlgorithm.HS512);
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            throw new MalformedJwtException("Invalid JWT token");
+        }
         return claims.getSubject();
     }
 
     public boolean validateToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Verify the token and return its claims, or null if it is invalid or expired.
+     * A token already verified on this node is served from the cache without another signature check.
+     */
+    public Claims parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            log.error("JWT claims string is empty");
+            return null;
+        }
+        String digest = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = verify(token);
+        if (claims != null && claims.getExpiration() != null) {
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
+    }
+
+    private Claims verify(String authToken) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException ex) {
+            return parser.parseClaimsJws(authToken).getBody();
+        } catch (io.jsonwebtoken.security.SecurityException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token");
@@ -95,6 +178,12 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty");
         }
-        return false;
+        return null;
+    }
+
+    private String digest(String token) {
+        MessageDigest md = sha256.get();
+        md.reset();
+        return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 }
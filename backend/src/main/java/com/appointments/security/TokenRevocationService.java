@@ -0,0 +1,172 @@
+package com.appointments.security;
+
+import com.appointments.entity.RevokedToken;
+import com.appointments.entity.User;
+import com.appointments.exception.ResourceNotFoundException;
+import com.appointments.repository.RevokedTokenRepository;
+import com.appointments.repository.UserRepository;
+import com.appointments.util.BloomFilter;
+import com.appointments.util.TransactionHooks;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation of individual tokens (logout) and of every token a user holds (revoke-all).
+ *
+ * Individual revocations are stored in {@code revoked_tokens}. Each node keeps the unexpired
+ * jtis in an exact map behind a Bloom filter, so the per-request check for a token that is not
+ * revoked is a handful of bit probes. New rows are picked up every {@code auth.revocation.refresh-ms},
+ * which bounds how long a revoked token stays usable on other nodes; the revoking node applies
+ * it as soon as the transaction commits. Revoke-all bumps the account epoch instead, which
+ * {@link AccountStateRegistry} propagates the same way.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final UserRepository userRepository;
+    private final AccountStateRegistry accountStateRegistry;
+
+    @Value("${auth.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${auth.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${auth.revocation.overlap-seconds:60}")
+    private long overlapSeconds;
+
+    /**
+     * jti to expiry of every unexpired revoked token known to this node
+     */
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastRefresh;
+
+    /**
+     * @return true if the token with this jti was revoked; tokens without a jti cannot be revoked individually
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (lastRefresh == null) {
+            refresh();
+        }
+        return filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    /**
+     * Revoke the token described by these claims until it expires
+     */
+    @Transactional
+    public void revoke(Long userId, String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || revokedTokenRepository.existsByJti(jti)) {
+            return;
+        }
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneOffset.UTC);
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .userId(userId)
+                .expiresAt(expiry)
+                .revokedAt(LocalDateTime.now(ZoneOffset.UTC))
+                .build());
+        TransactionHooks.afterCommit(() -> add(jti, expiry));
+    }
+
+    /**
+     * Revoke a token the caller presented, such as the refresh token on logout, if it belongs to {@code userId}
+     */
+    @Transactional
+    public void revoke(Long userId, Claims claims) {
+        Number owner = claims.get(AuthenticatedUser.CLAIM_USER_ID, Number.class);
+        if (owner == null || owner.longValue() != userId) {
+            throw new SecurityException("Token does not belong to the current user");
+        }
+        revoke(userId, claims.getId(), claims.getExpiration());
+    }
+
+    /**
+     * Invalidate every access and refresh token issued to the user so far
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        user.setTokenEpoch(user.getTokenEpoch() + 1);
+        userRepository.save(user);
+        log.info("Revoked all tokens for user {} (epoch {})", userId, user.getTokenEpoch());
+
+        User.Role role = user.getRole();
+        boolean active = Boolean.TRUE.equals(user.getIsActive());
+        int epoch = user.getTokenEpoch();
+        TransactionHooks.afterCommit(() -> accountStateRegistry.update(userId, role, active, epoch));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-ms:5000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        if (lastRefresh == null) {
+            List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(now);
+            active.forEach(token -> revoked.put(token.getJti(), token.getExpiresAt()));
+            rebuildFilter();
+            log.info("Loaded {} revoked tokens", active.size());
+        } else {
+            revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(
+                            lastRefresh.minusSeconds(overlapSeconds), now)
+                    .forEach(token -> add(token.getJti(), token.getExpiresAt()));
+        }
+        lastRefresh = now;
+    }
+
+    /**
+     * Drop expired entries, rebuild the filter without them, and delete the expired rows
+     */
+    @Scheduled(cron = "${auth.revocation.cleanup-cron:0 17 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        synchronized (this) {
+            revoked.values().removeIf(expiry -> !expiry.isAfter(now));
+            rebuildFilter();
+        }
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        if (deleted > 0) {
+            log.info("Deleted {} expired token revocations", deleted);
+        }
+    }
+
+    private synchronized void add(String jti, LocalDateTime expiresAt) {
+        if (revoked.put(jti, expiresAt) != null) {
+            return;
+        }
+        if (filter == null || revoked.size() > filter.getExpectedInsertions()) {
+            rebuildFilter();
+        } else {
+            filter.put(jti);
+        }
+    }
+
+    /**
+     * Sized for at least twice the current entries, so the false-positive rate holds as revocations accumulate
+     */
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, 2L * revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+}
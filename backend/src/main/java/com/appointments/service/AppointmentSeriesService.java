@@ -0,0 +1,113 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentRequest;
+import com.appointments.dto.AppointmentSeriesRequest;
+import com.appointments.dto.AppointmentSeriesResponse;
+import com.appointments.dto.BatchAppointmentResponse;
+import com.appointments.entity.AppointmentSeries;
+import com.appointments.entity.User;
+import com.appointments.exception.ResourceNotFoundException;
+import com.appointments.repository.AppointmentSeriesRepository;
+import com.appointments.repository.ServiceRepository;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.repository.UserRepository;
+import com.appointments.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recurring bookings. The rule is expanded into occurrences up front and booked through
+ * {@link BatchBookingService}, so the whole series costs one conflict check per staff member
+ * and one batched insert, instead of one locking transaction per occurrence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentSeriesService {
+
+    private final AppointmentSeriesRepository seriesRepository;
+    private final UserRepository userRepository;
+    private final StaffProfileRepository staffProfileRepository;
+    private final ServiceRepository serviceRepository;
+    private final BatchBookingService batchBookingService;
+
+    @Value("${booking.series.max-occurrences:260}")
+    private int maxOccurrences;
+
+    @Transactional
+    public AppointmentSeriesResponse createSeries(AppointmentSeriesRequest request, AuthenticatedUser principal) {
+        List<AppointmentRequest> occurrences = expand(request);
+        log.info("Creating {} series of {} occurrences for user: {}",
+                request.getFrequency(), occurrences.size(), principal.getId());
+
+        User user = userRepository.getReferenceById(principal.getId());
+
+        AppointmentSeries series = seriesRepository.save(AppointmentSeries.builder()
+                .user(user)
+                .staff(staffProfileRepository.findById(request.getStaffId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Staff not found")))
+                .service(serviceRepository.findById(request.getServiceId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Service not found")))
+                .frequency(request.getFrequency())
+                .repeatInterval(request.getInterval())
+                .occurrenceCount(request.getCount())
+                .untilDate(request.getUntil())
+                .firstStartTime(request.getStartTime())
+                .durationMinutes((int) Duration.between(request.getStartTime(), request.getEndTime()).toMinutes())
+                .build());
+
+        BatchAppointmentResponse booked = batchBookingService.book(occurrences, request.getMode(), user, series);
+
+        return AppointmentSeriesResponse.builder()
+                .seriesId(series.getId())
+                .created(booked.getCreated())
+                .failed(booked.getFailed())
+                .build();
+    }
+
+    /**
+     * Occurrences of the rule, stopping at whichever of {@code count} and {@code until} comes first
+     */
+    List<AppointmentRequest> expand(AppointmentSeriesRequest request) {
+        if (request.getCount() == null && request.getUntil() == null) {
+            throw new IllegalArgumentException("Either count or until is required");
+        }
+        if (!request.getEndTime().isAfter(request.getStartTime())) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        int interval = request.getInterval() != null ? request.getInterval() : 1;
+        Duration length = Duration.between(request.getStartTime(), request.getEndTime());
+
+        List<AppointmentRequest> occurrences = new ArrayList<>();
+        for (int n = 0; request.getCount() == null || n < request.getCount(); n++) {
+            LocalDateTime start = request.getFrequency() == AppointmentSeries.Frequency.WEEKLY
+                    ? request.getStartTime().plusWeeks((long) n * interval)
+                    : request.getStartTime().plusDays((long) n * interval);
+            if (request.getUntil() != null && start.toLocalDate().isAfter(request.getUntil())) {
+                break;
+            }
+            if (occurrences.size() == maxOccurrences) {
+                throw new IllegalArgumentException("A series cannot have more than " + maxOccurrences + " occurrences");
+            }
+            occurrences.add(AppointmentRequest.builder()
+                    .staffId(request.getStaffId())
+                    .serviceId(request.getServiceId())
+                    .startTime(start)
+                    .endTime(start.plus(length))
+                    .notes(request.getNotes())
+                    .build());
+        }
+        if (occurrences.isEmpty()) {
+            throw new IllegalArgumentException("The series has no occurrences before 'until'");
+        }
+        return occurrences;
+    }
+}
@@ -1,13 +1,19 @@
 package com.appointments.service;
 
+import com.appointments.dto.AppointmentPage;
 import com.appointments.dto.AppointmentRequest;
 import com.appointments.dto.AppointmentResponse;
+import com.appointments.dto.AppointmentView;
 import com.appointments.entity.*;
 import com.appointments.exception.ResourceNotFoundException;
 import com.appointments.exception.AppointmentConflictException;
 import com.appointments.repository.*;
+import com.appointments.security.AuthenticatedUser;
+import com.appointments.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,39 +30,55 @@ public class AppointmentService {
     private final UserRepository userRepository;
     private final StaffProfileRepository staffProfileRepository;
     private final ServiceRepository serviceRepository;
-    private final ReminderService reminderService;
-    private final CalendarSyncService calendarSyncService;
+    private final OutboxService outboxService;
+    private final StaffBookingIndex bookingIndex;
+    private final SlotClaimService slotClaimService;
+    private final AvailabilityCache availabilityCache;
+    private final ReferenceDataService referenceDataService;
+
+    @Value("${appointments.page.default-limit:50}")
+    private int defaultPageSize;
+
+    @Value("${appointments.page.max-limit:200}")
+    private int maxPageSize;
 
     /**
-     * Create appointment with atomic conflict detection using SELECT FOR UPDATE
+     * Create appointment with atomic conflict detection using SELECT FOR UPDATE,
+     * or by claiming slot rows when booking.mode=slot-claim.
+     * Overlaps already known to the in-memory booking index are rejected before any query runs.
      */
     @Transactional
-    public AppointmentResponse createAppointment(AppointmentRequest request, String userEmail) {
-        log.info("Creating appointment for user: {}", userEmail);
+    public AppointmentResponse createAppointment(AppointmentRequest request, AuthenticatedUser principal) {
+        log.info("Creating appointment for user: {}", principal.getId());
 
-        // Validate user
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        // The user comes from the token; staff and service are validated from the reference data cache.
+        // The entities are only referenced by id
+        referenceDataService.getStaff(request.getStaffId());
+        referenceDataService.getService(request.getServiceId());
 
-        // Validate staff
-        StaffProfile staff = staffProfileRepository.findById(request.getStaffId())
-                .orElseThrow(() -> new ResourceNotFoundException("Staff not found"));
+        // Fast in-memory rejection; the hold is released automatically on rollback
+        StaffBookingIndex.Hold hold = bookingIndex.hold(
+                request.getStaffId(), request.getStartTime(), request.getEndTime(), null
+        );
 
-        // Validate service
-        com.appointments.entity.Service service = serviceRepository.findById(request.getServiceId())
-                .orElseThrow(() -> new ResourceNotFoundException("Service not found"));
+        User user = userRepository.getReferenceById(principal.getId());
+        StaffProfile staff = staffProfileRepository.getReferenceById(request.getStaffId());
+        com.appointments.entity.Service service = serviceRepository.getReferenceById(request.getServiceId());
 
         LocalDateTime startTime = request.getStartTime();
         LocalDateTime endTime = request.getEndTime();
 
         // Atomic conflict detection with pessimistic locking
-        List<Appointment> conflicts = appointmentRepository.findConflictingAppointmentsForUpdate(
-                staff.getId(), startTime, endTime
-        );
-
-        if (!conflicts.isEmpty()) {
-            log.warn("Appointment conflict detected for staff {} at time {}", staff.getId(), startTime);
-            throw new AppointmentConflictException("This time slot is no longer available");
+        if (!slotClaimService.isEnabled()) {
+            List<Appointment> conflicts = appointmentRepository.findConflictingAppointmentsForUpdate(
+                    staff.getId(), startTime, endTime
+            );
+
+            if (!conflicts.isEmpty()) {
+                log.warn("Appointment conflict detected for staff {} at time {}", staff.getId(), startTime);
+                bookingIndex.recordAll(staff.getId(), conflicts);
+                throw new AppointmentConflictException("This time slot is no longer available");
+            }
         }
 
         // Create appointment
@@ -70,62 +92,86 @@ public class AppointmentService {
                 .notes(request.getNotes())
                 .build();
 
-        appointment = appointmentRepository.save(appointment);
-        log.info("Appointment created with ID: {}", appointment.getId());
-
-        // Create reminders (24h, 1h, 15min before)
-        reminderService.createRemindersForAppointment(appointment);
+        // Pooled ids defer the INSERT; slot rows reference the appointment, so flush it before claiming
+        appointment = slotClaimService.isEnabled()
+                ? appointmentRepository.saveAndFlush(appointment)
+                : appointmentRepository.save(appointment);
 
-        // Sync with external calendar
-        try {
-            calendarSyncService.syncAppointmentToCalendar(appointment);
-        } catch (Exception e) {
-            log.error("Failed to sync appointment to calendar", e);
-            // Continue even if calendar sync fails
+        // Optimistic mode: duplicate slot rows roll the booking back as a conflict
+        if (slotClaimService.isEnabled()) {
+            slotClaimService.claim(staff.getId(), appointment.getId(), startTime, endTime);
         }
 
+        hold.bind(appointment.getId());
+        availabilityCache.onBooked(staff.getId(), startTime, endTime);
+        log.info("Appointment created with ID: {}", appointment.getId());
+
+        // Reminders and calendar sync run after commit, from the outbox
+        outboxService.publish(appointment.getId(), OutboxEvent.Type.APPOINTMENT_CREATED);
+
         return mapToResponse(appointment);
     }
 
     @Transactional
-    public AppointmentResponse updateAppointment(Long appointmentId, AppointmentRequest request, String userEmail) {
+    public AppointmentResponse updateAppointment(Long appointmentId, AppointmentRequest request,
+                                                 AuthenticatedUser principal) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
 
         // Check authorization
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        if (!appointment.getUser().getId().equals(user.getId()) &&
-            !user.getRole().equals(User.Role.ADMIN) &&
-            !user.getRole().equals(User.Role.STAFF)) {
+        if (!appointment.getUser().getId().equals(principal.getId()) &&
+            principal.getRole() != User.Role.ADMIN &&
+            principal.getRole() != User.Role.STAFF) {
             throw new SecurityException("Not authorized to update this appointment");
         }
 
+        boolean rescheduled = false;
+
         // Update fields
         if (request.getStartTime() != null && request.getEndTime() != null) {
             // Check for conflicts if time is changed
             if (!request.getStartTime().equals(appointment.getStartTime())) {
-                List<Appointment> conflicts = appointmentRepository.findConflictingAppointmentsForUpdate(
+                StaffBookingIndex.Hold hold = bookingIndex.hold(
                         appointment.getStaff().getId(),
                         request.getStartTime(),
-                        request.getEndTime()
+                        request.getEndTime(),
+                        appointmentId
                 );
 
-                // Exclude current appointment from conflicts
-                conflicts = conflicts.stream()
-                        .filter(a -> !a.getId().equals(appointmentId))
-                        .collect(Collectors.toList());
-
-                if (!conflicts.isEmpty()) {
-                    throw new AppointmentConflictException("This time slot is not available");
+                if (!slotClaimService.isEnabled()) {
+                    List<Appointment> conflicts = appointmentRepository.findConflictingAppointmentsForUpdate(
+                            appointment.getStaff().getId(),
+                            request.getStartTime(),
+                            request.getEndTime()
+                    );
+
+                    // Exclude current appointment from conflicts
+                    conflicts = conflicts.stream()
+                            .filter(a -> !a.getId().equals(appointmentId))
+                            .collect(Collectors.toList());
+
+                    if (!conflicts.isEmpty()) {
+                        bookingIndex.recordAll(appointment.getStaff().getId(), conflicts);
+                        throw new AppointmentConflictException("This time slot is not available");
+                    }
                 }
 
+                availabilityCache.onReleased(appointment.getStaff().getId(),
+                        appointment.getStartTime(), appointment.getEndTime());
+                availabilityCache.onBooked(appointment.getStaff().getId(),
+                        request.getStartTime(), request.getEndTime());
+
                 appointment.setStartTime(request.getStartTime());
                 appointment.setEndTime(request.getEndTime());
 
-                // Update reminders
-                reminderService.updateRemindersForAppointment(appointment);
+                // Release and re-claim slots in the same transaction
+                slotClaimService.release(appointmentId);
+                if (slotClaimService.isEnabled()) {
+                    slotClaimService.claim(appointment.getStaff().getId(), appointmentId,
+                            request.getStartTime(), request.getEndTime());
+                }
+                hold.bind(appointmentId);
+                rescheduled = true;
             }
         }
 
@@ -135,59 +181,82 @@ public class AppointmentService {
 
         appointment = appointmentRepository.save(appointment);
 
-        // Update calendar event
-        try {
-            calendarSyncService.updateCalendarEvent(appointment);
-        } catch (Exception e) {
-            log.error("Failed to update calendar event", e);
-        }
+        // Reminders follow a reschedule; the calendar event follows any change
+        outboxService.publish(appointmentId, rescheduled
+                ? OutboxEvent.Type.APPOINTMENT_RESCHEDULED : OutboxEvent.Type.APPOINTMENT_UPDATED);
 
         return mapToResponse(appointment);
     }
 
     @Transactional
-    public void cancelAppointment(Long appointmentId, String reason, String userEmail) {
+    public void cancelAppointment(Long appointmentId, String reason, AuthenticatedUser principal) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
 
         // Check authorization
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        if (!appointment.getUser().getId().equals(user.getId()) &&
-            !user.getRole().equals(User.Role.ADMIN)) {
+        if (!appointment.getUser().getId().equals(principal.getId()) && !principal.isAdmin()) {
             throw new SecurityException("Not authorized to cancel this appointment");
         }
 
+        // Already cancelled: its slots may have been booked again since, so do not release them twice
+        if (appointment.getStatus() == Appointment.Status.CANCELLED) {
+            log.info("Appointment {} is already cancelled", appointmentId);
+            return;
+        }
+
         appointment.setStatus(Appointment.Status.CANCELLED);
         appointment.setCancellationReason(reason);
         appointmentRepository.save(appointment);
+        slotClaimService.release(appointmentId);
+        bookingIndex.release(appointment.getStaff().getId(), appointmentId);
+        availabilityCache.onReleased(appointment.getStaff().getId(),
+                appointment.getStartTime(), appointment.getEndTime());
 
-        // Cancel reminders
-        reminderService.cancelRemindersForAppointment(appointmentId);
-
-        // Delete calendar event
-        try {
-            calendarSyncService.deleteCalendarEvent(appointment);
-        } catch (Exception e) {
-            log.error("Failed to delete calendar event", e);
-        }
+        // Cancel reminders and delete the calendar event after commit
+        outboxService.publish(appointmentId, OutboxEvent.Type.APPOINTMENT_CANCELLED);
 
         log.info("Appointment {} cancelled", appointmentId);
     }
 
+    /**
+     * Keyset-paginated listing for a user, or for a staff member within [from, to).
+     * Every page is a single index range scan, however deep the client has scrolled.
+     */
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getUserAppointments(Long userId) {
-        return appointmentRepository.findByUserId(userId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-    }
+    public AppointmentPage getAppointmentPage(Long userId, Long staffId, LocalDateTime from, LocalDateTime to,
+                                              Appointment.Status status, Sort.Direction direction,
+                                              String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+
+        // Fetch one extra row to learn whether another page exists
+        List<AppointmentView> rows = appointmentRepository.findPage(AppointmentPageQuery.builder()
+                .userId(userId)
+                .staffId(userId == null ? staffId : null)
+                .status(status)
+                .excludeCancelled(userId == null)
+                .from(from)
+                .to(to)
+                .direction(direction != null ? direction : Sort.Direction.ASC)
+                .afterStartTime(after != null ? after.getStartTime() : null)
+                .afterId(after != null ? after.getId() : null)
+                .limit(pageSize + 1)
+                .build());
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            AppointmentView last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getStartTime(), last.getId()).encode();
+        }
 
-    @Transactional(readOnly = true)
-    public List<AppointmentResponse> getStaffAppointments(Long staffId, LocalDateTime from, LocalDateTime to) {
-        return appointmentRepository.findByStaffIdAndDateRange(staffId, from, to).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return AppointmentPage.builder()
+                .items(rows.stream().map(AppointmentService::mapToResponse).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Transactional(readOnly = true)
@@ -197,12 +266,13 @@ public class AppointmentService {
         return mapToResponse(appointment);
     }
 
-    private AppointmentResponse mapToResponse(Appointment appointment) {
+    static AppointmentResponse mapToResponse(Appointment appointment) {
         return AppointmentResponse.builder()
                 .id(appointment.getId())
                 .userId(appointment.getUser().getId())
                 .staffId(appointment.getStaff().getId())
                 .serviceId(appointment.getService().getId())
+                .seriesId(appointment.getSeries() != null ? appointment.getSeries().getId() : null)
                 .startTime(appointment.getStartTime())
                 .endTime(appointment.getEndTime())
                 .status(appointment.getStatus().name())
@@ -211,4 +281,20 @@ public class AppointmentService {
                 .createdAt(appointment.getCreatedAt())
                 .build();
     }
+
+    static AppointmentResponse mapToResponse(AppointmentView view) {
+        return AppointmentResponse.builder()
+                .id(view.getId())
+                .userId(view.getUserId())
+                .staffId(view.getStaffId())
+                .serviceId(view.getServiceId())
+                .seriesId(view.getSeriesId())
+                .startTime(view.getStartTime())
+                .endTime(view.getEndTime())
+                .status(view.getStatus().name())
+                .notes(view.getNotes())
+                .cancellationReason(view.getCancellationReason())
+                .createdAt(view.getCreatedAt())
+                .build();
+    }
 }
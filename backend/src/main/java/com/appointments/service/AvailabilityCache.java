@@ -0,0 +1,401 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentInterval;
+import com.appointments.dto.WorkingHoursSnapshot;
+import com.appointments.entity.StaffBreak;
+import com.appointments.entity.StaffProfile;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.repository.StaffBreakRepository;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.util.SlotBitmap;
+import com.appointments.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling cache of the next {@code availability.cache.days} days of free/busy slot bitmaps per staff member.
+ *
+ * Each entry keeps two primitive layers of {@link SlotBitmap#WORDS_PER_DAY} longs per day: the open
+ * layer (working hours minus breaks) and the busy layer (appointments). Bookings, reschedules and
+ * cancellations patch the busy layer in place; schedule changes recompute only the open layer.
+ * When the date rolls over, entries shift by whole days and only the new tail is loaded.
+ * The number of cached staff is capped, evicting the least recently viewed entry.
+ *
+ * Changes committed on other nodes arrive over Redis pub/sub: each node broadcasts the intervals it
+ * booked or freed, which receivers patch into their busy layer, and the staff ids whose schedule
+ * changed, for which receivers recompute the open layer. As a safety net for lost broadcasts, an
+ * entry older than {@code availability.cache.max-age-seconds} is reloaded on its next read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityCache implements MessageListener {
+
+    private static final int BITS_PER_DAY = SlotBitmap.WORDS_PER_DAY * 64;
+
+    private static final String BOOKED = "booked";
+    private static final String RELEASED = "released";
+    private static final String SCHEDULE_CHANGED = "schedule";
+
+    private final StaffProfileRepository staffProfileRepository;
+    private final ReferenceDataService referenceDataService;
+    private final StaffBreakRepository staffBreakRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    private final Map<Long, StaffDays> entries = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${availability.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${availability.cache.days:90}")
+    private int days;
+
+    @Value("${availability.cache.max-staff:5000}")
+    private int maxStaff;
+
+    @Value("${availability.cache.warm-on-startup:true}")
+    private boolean warmOnStartup;
+
+    @Value("${availability.cache.max-age-seconds:21600}")
+    private long maxAgeSeconds;
+
+    @Value("${cache.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${availability.cache.invalidation-channel:availability-invalidation}")
+    private String invalidationChannel;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter reloads;
+
+    @PostConstruct
+    public void registerMetrics() {
+        hits = meterRegistry.counter("availability.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("availability.cache.requests", "result", "miss");
+        evictions = meterRegistry.counter("availability.cache.evictions");
+        reloads = meterRegistry.counter("availability.cache.reloads");
+        Gauge.builder("availability.cache.staff", entries, Map::size)
+                .description("Staff members held in the availability cache")
+                .register(meterRegistry);
+        Gauge.builder("availability.cache.bytes", this, AvailabilityCache::estimatedBytes)
+                .description("Approximate heap used by cached slot bitmaps")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load every active staff member up to the cap, in the background
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || !warmOnStartup) {
+            return;
+        }
+        List<StaffProfile> staff = staffProfileRepository.findByIsAvailableTrue();
+        int limit = Math.min(staff.size(), maxStaff);
+        for (int i = 0; i < limit; i++) {
+            entry(staff.get(i).getId());
+        }
+        log.info("Availability cache warmed for {} staff members", limit);
+    }
+
+    public boolean covers(LocalDate date) {
+        long offset = date.toEpochDay() - today();
+        return enabled && offset >= 0 && offset < days;
+    }
+
+    /**
+     * Copy the free slots of {@code date} into {@code free}, loading the staff member on a miss.
+     *
+     * @return false if the date fell outside the window (e.g. the day rolled over mid-request)
+     */
+    public boolean copyFreeDay(Long staffId, LocalDate date, long[] free) {
+        StaffDays entry = entry(staffId);
+        entry.lastViewed = System.nanoTime();
+        synchronized (entry) {
+            if (System.nanoTime() - entry.loadedAt > TimeUnit.SECONDS.toNanos(maxAgeSeconds)) {
+                reload(staffId, entry);
+            }
+            roll(staffId, entry);
+            long index = date.toEpochDay() - entry.baseEpochDay;
+            if (index < 0 || index >= days) {
+                return false;
+            }
+            int base = (int) index * SlotBitmap.WORDS_PER_DAY;
+            for (int i = 0; i < SlotBitmap.WORDS_PER_DAY; i++) {
+                free[i] = entry.open[base + i] & ~entry.busy[base + i];
+            }
+            return true;
+        }
+    }
+
+    public boolean isCached(Long staffId) {
+        return entries.containsKey(staffId);
+    }
+
+    /**
+     * Mark an appointment's slots busy once the surrounding transaction commits
+     */
+    public void onBooked(Long staffId, LocalDateTime startTime, LocalDateTime endTime) {
+        TransactionHooks.afterCommit(() -> {
+            patch(staffId, startTime, endTime, true);
+            broadcast(BOOKED + "\n" + staffId + "\n" + startTime + "\n" + endTime);
+        });
+    }
+
+    /**
+     * Free an appointment's slots once the surrounding transaction commits
+     */
+    public void onReleased(Long staffId, LocalDateTime startTime, LocalDateTime endTime) {
+        TransactionHooks.afterCommit(() -> {
+            patch(staffId, startTime, endTime, false);
+            broadcast(RELEASED + "\n" + staffId + "\n" + startTime + "\n" + endTime);
+        });
+    }
+
+    /**
+     * Recompute the open layer after working hours or breaks change; the busy layer is kept.
+     * Runs once per staff member however many of their rows the transaction changed.
+     */
+    public void onScheduleChanged(Long staffId) {
+        TransactionHooks.afterCommitOnce("availability:" + staffId, () -> {
+            recomputeOpen(staffId);
+            broadcast(SCHEDULE_CHANGED + "\n" + staffId);
+        });
+    }
+
+    /**
+     * Apply a change committed on another node: patch the busy layer, or recompute the open layer
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\n");
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            Long staffId = Long.valueOf(parts[2]);
+            switch (parts[1]) {
+                case BOOKED, RELEASED -> patch(staffId, LocalDateTime.parse(parts[3]), LocalDateTime.parse(parts[4]),
+                        BOOKED.equals(parts[1]));
+                case SCHEDULE_CHANGED -> recomputeOpen(staffId);
+                default -> log.debug("Ignoring unknown availability change: {}", body);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Ignoring malformed availability change: {}", body);
+        }
+    }
+
+    /**
+     * Tell other nodes about a change this node has just committed
+     */
+    private void broadcast(String change) {
+        if (!redisEnabled) {
+            return;
+        }
+        StringRedisTemplate template = redisTemplate.getIfAvailable();
+        if (template == null) {
+            return;
+        }
+        try {
+            template.convertAndSend(invalidationChannel, nodeId + "\n" + change);
+        } catch (RuntimeException e) {
+            // Other nodes catch up when their entry reaches max-age
+            log.debug("Availability change not broadcast: {}", e.getMessage());
+        }
+    }
+
+    private void recomputeOpen(Long staffId) {
+        StaffDays entry = entries.get(staffId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            LocalDate first = LocalDate.ofEpochDay(entry.baseEpochDay);
+            Arrays.fill(entry.open, 0L);
+            fillOpen(staffId, entry, first, 0, days);
+        }
+    }
+
+    /**
+     * Load both layers afresh, dropping whatever local patches and broadcasts did or missed
+     */
+    private void reload(Long staffId, StaffDays entry) {
+        reloads.increment();
+        Arrays.fill(entry.open, 0L);
+        Arrays.fill(entry.busy, 0L);
+        entry.baseEpochDay = today();
+        entry.loadedAt = System.nanoTime();
+        fillDays(staffId, entry, 0, days);
+    }
+
+    private void patch(Long staffId, LocalDateTime startTime, LocalDateTime endTime, boolean busy) {
+        StaffDays entry = entries.get(staffId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            LocalDate date = startTime.toLocalDate();
+            LocalDate last = endTime.toLocalDate();
+            for (; !date.isAfter(last); date = date.plusDays(1)) {
+                long index = date.toEpochDay() - entry.baseEpochDay;
+                if (index < 0 || index >= days || !AvailabilityService.overlapsDay(date, startTime, endTime)) {
+                    continue;
+                }
+                int offset = (int) index * BITS_PER_DAY;
+                if (busy) {
+                    SlotBitmap.setRange(entry.busy, offset,
+                            AvailabilityService.firstCoveredSlot(date, startTime),
+                            AvailabilityService.lastCoveredSlot(date, endTime));
+                } else {
+                    // Only free slots the appointment fully covers; partial edge slots may be shared
+                    int from = startTime.toLocalDate().isBefore(date) ? 0 : SlotBitmap.slotCeil(startTime.toLocalTime());
+                    int to = endTime.toLocalDate().isAfter(date) ? SlotBitmap.SLOTS_PER_DAY : SlotBitmap.slotOf(endTime.toLocalTime());
+                    SlotBitmap.clearRange(entry.busy, offset, from, to);
+                }
+            }
+        }
+    }
+
+    private StaffDays entry(Long staffId) {
+        StaffDays entry = entries.get(staffId);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+
+        misses.increment();
+        StaffDays loaded = new StaffDays(today(), days);
+        fillDays(staffId, loaded, 0, days);
+        entry = entries.putIfAbsent(staffId, loaded);
+        if (entry == null) {
+            evictIfFull();
+            return loaded;
+        }
+        return entry;
+    }
+
+    /**
+     * Shift the entry forward to today, loading only the days that entered the window
+     */
+    private void roll(Long staffId, StaffDays entry) {
+        long shift = today() - entry.baseEpochDay;
+        if (shift <= 0) {
+            return;
+        }
+        int kept = (int) Math.max(0, days - shift);
+        int keptWords = kept * SlotBitmap.WORDS_PER_DAY;
+        int shiftWords = (int) Math.min(shift, days) * SlotBitmap.WORDS_PER_DAY;
+        System.arraycopy(entry.open, shiftWords, entry.open, 0, keptWords);
+        System.arraycopy(entry.busy, shiftWords, entry.busy, 0, keptWords);
+        Arrays.fill(entry.open, keptWords, entry.open.length, 0L);
+        Arrays.fill(entry.busy, keptWords, entry.busy.length, 0L);
+        entry.baseEpochDay += shift;
+        fillDays(staffId, entry, kept, days);
+    }
+
+    /**
+     * Populate both layers for day indexes [fromDay, toDay) of the entry
+     */
+    private void fillDays(Long staffId, StaffDays entry, int fromDay, int toDay) {
+        LocalDate first = LocalDate.ofEpochDay(entry.baseEpochDay);
+        fillOpen(staffId, entry, first, fromDay, toDay);
+
+        LocalDateTime from = first.plusDays(fromDay).atStartOfDay();
+        LocalDateTime to = first.plusDays(toDay).atStartOfDay();
+        for (AppointmentInterval interval : appointmentRepository.findActiveIntervalsByStaffIdAndRange(staffId, from, to)) {
+            LocalDate date = interval.getStartTime().toLocalDate();
+            LocalDate last = interval.getEndTime().toLocalDate();
+            for (; !date.isAfter(last); date = date.plusDays(1)) {
+                long index = date.toEpochDay() - entry.baseEpochDay;
+                if (index >= fromDay && index < toDay
+                        && AvailabilityService.overlapsDay(date, interval.getStartTime(), interval.getEndTime())) {
+                    SlotBitmap.setRange(entry.busy, (int) index * BITS_PER_DAY,
+                            AvailabilityService.firstCoveredSlot(date, interval.getStartTime()),
+                            AvailabilityService.lastCoveredSlot(date, interval.getEndTime()));
+                }
+            }
+        }
+    }
+
+    private void fillOpen(Long staffId, StaffDays entry, LocalDate first, int fromDay, int toDay) {
+        List<WorkingHoursSnapshot> workingHours = referenceDataService.getWorkingHours(staffId);
+        List<StaffBreak> breaks = staffBreakRepository.findByStaffIdForWindow(staffId,
+                first.plusDays(fromDay).atStartOfDay(), first.plusDays(toDay).atStartOfDay());
+        for (int day = fromDay; day < toDay; day++) {
+            AvailabilityService.applyOpenHours(entry.open, day * BITS_PER_DAY, first.plusDays(day), workingHours, breaks);
+        }
+    }
+
+    private void evictIfFull() {
+        while (entries.size() > maxStaff) {
+            Long oldest = null;
+            long oldestViewed = Long.MAX_VALUE;
+            for (Map.Entry<Long, StaffDays> candidate : entries.entrySet()) {
+                if (candidate.getValue().lastViewed < oldestViewed) {
+                    oldestViewed = candidate.getValue().lastViewed;
+                    oldest = candidate.getKey();
+                }
+            }
+            if (oldest == null || entries.remove(oldest) == null) {
+                return;
+            }
+            evictions.increment();
+        }
+    }
+
+    private double estimatedBytes() {
+        // Two long layers per entry plus array headers and entry overhead
+        long perEntry = 2L * days * SlotBitmap.WORDS_PER_DAY * Long.BYTES + 96;
+        return (double) perEntry * entries.size();
+    }
+
+    private static long today() {
+        return LocalDate.now(ZoneOffset.UTC).toEpochDay();
+    }
+
+    private static final class StaffDays {
+        private long baseEpochDay;
+        private final long[] open;
+        private final long[] busy;
+        private volatile long lastViewed = System.nanoTime();
+        private long loadedAt = System.nanoTime();
+
+        private StaffDays(long baseEpochDay, int days) {
+            this.baseEpochDay = baseEpochDay;
+            this.open = new long[days * SlotBitmap.WORDS_PER_DAY];
+            this.busy = new long[days * SlotBitmap.WORDS_PER_DAY];
+        }
+    }
+}
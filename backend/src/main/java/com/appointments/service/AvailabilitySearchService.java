@@ -0,0 +1,209 @@
+package com.appointments.service;
+
+import com.appointments.dto.SlotSearchResponse;
+import com.appointments.dto.StaffSlot;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.util.SlotBitmap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * "First available" search across every staff member qualified for a service.
+ *
+ * Eligible staff are split across a bounded {@link ForkJoinPool}; each worker scans its staff day by
+ * day using the slot bitmaps and offers candidates to a shared top-K heap. Once K slots are found,
+ * the K-th best start becomes a bound and workers stop scanning anything that starts later.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilitySearchService {
+
+    private final AvailabilityService availabilityService;
+    private final StaffProfileRepository staffProfileRepository;
+    private final ReferenceDataService referenceDataService;
+
+    @Value("${availability.search.parallelism:0}")
+    private int parallelism;
+
+    @Value("${availability.search.max-days:31}")
+    private int maxDays;
+
+    @Value("${availability.search.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${availability.search.staff-per-task:16}")
+    private int staffPerTask;
+
+    private ForkJoinPool searchPool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        searchPool = new ForkJoinPool(threads);
+        log.info("Availability search pool started with parallelism {}", threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchPool.shutdown();
+    }
+
+    public SlotSearchResponse search(Long serviceId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (Duration.between(from, to).toDays() > maxDays) {
+            throw new IllegalArgumentException("Search range cannot exceed " + maxDays + " days");
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+
+        int durationMinutes = referenceDataService.getService(serviceId).getDurationMinutes();
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime searchFrom = from.isBefore(now) ? now : from;
+
+        List<Long> staffIds = staffProfileRepository.findAvailableStaffIdsByServiceId(serviceId);
+        TopSlots top = new TopSlots(limit);
+        if (searchFrom.isBefore(to) && !staffIds.isEmpty()) {
+            searchPool.invoke(new StaffScanTask(staffIds, 0, staffIds.size(), searchFrom, to, durationMinutes, top));
+        }
+
+        return SlotSearchResponse.builder()
+                .serviceId(serviceId)
+                .durationMinutes(durationMinutes)
+                .slots(top.sorted())
+                .build();
+    }
+
+    private void scanStaff(Long staffId, LocalDateTime from, LocalDateTime to, int durationMinutes, TopSlots top) {
+        long[] free = SlotBitmap.newDay();
+        LocalDate firstDate = from.toLocalDate();
+        LocalDate lastDate = to.toLocalDate();
+
+        for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+            LocalDateTime dayStart = date.atStartOfDay();
+            if (!top.accepts(dayStart)) {
+                return;
+            }
+
+            availabilityService.freeSlots(staffId, date, free);
+            int firstSlot = date.equals(firstDate) ? SlotBitmap.slotCeil(from.toLocalTime()) : 0;
+            availabilityService.forEachBookableStart(free, durationMinutes, firstSlot, slot -> {
+                LocalDateTime start = dayStart.plusMinutes((long) slot * SlotBitmap.SLOT_MINUTES);
+                LocalDateTime end = start.plusMinutes(durationMinutes);
+                return !end.isAfter(to) && top.offer(staffId, start, end);
+            });
+        }
+    }
+
+    private final class StaffScanTask extends RecursiveAction {
+
+        private final List<Long> staffIds;
+        private final int low;
+        private final int high;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final int durationMinutes;
+        private final TopSlots top;
+
+        private StaffScanTask(List<Long> staffIds, int low, int high, LocalDateTime from, LocalDateTime to,
+                              int durationMinutes, TopSlots top) {
+            this.staffIds = staffIds;
+            this.low = low;
+            this.high = high;
+            this.from = from;
+            this.to = to;
+            this.durationMinutes = durationMinutes;
+            this.top = top;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low > staffPerTask) {
+                int mid = (low + high) >>> 1;
+                invokeAll(new StaffScanTask(staffIds, low, mid, from, to, durationMinutes, top),
+                        new StaffScanTask(staffIds, mid, high, from, to, durationMinutes, top));
+                return;
+            }
+            for (int i = low; i < high; i++) {
+                Long staffId = staffIds.get(i);
+                try {
+                    scanStaff(staffId, from, to, durationMinutes, top);
+                } catch (Exception e) {
+                    log.error("Availability search failed for staff {}", staffId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap of the K earliest slots seen so far
+     */
+    static final class TopSlots {
+
+        private static final Comparator<StaffSlot> LATEST_FIRST = Comparator
+                .comparing(StaffSlot::getStartTime)
+                .thenComparing(StaffSlot::getStaffId)
+                .reversed();
+
+        private final int limit;
+        private final PriorityQueue<StaffSlot> heap;
+        private volatile LocalDateTime bound;
+
+        TopSlots(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, LATEST_FIRST);
+        }
+
+        /**
+         * Whether a slot starting at or after {@code start} could still make the top K
+         */
+        boolean accepts(LocalDateTime start) {
+            LocalDateTime current = bound;
+            return current == null || start.isBefore(current);
+        }
+
+        /**
+         * @return false once {@code start} can no longer make the top K, so the caller can stop scanning
+         */
+        boolean offer(Long staffId, LocalDateTime start, LocalDateTime end) {
+            if (!accepts(start)) {
+                return false;
+            }
+            synchronized (this) {
+                heap.add(new StaffSlot(staffId, start, end));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+                if (heap.size() == limit) {
+                    bound = heap.peek().getStartTime();
+                }
+            }
+            return true;
+        }
+
+        synchronized List<StaffSlot> sorted() {
+            List<StaffSlot> slots = new ArrayList<>(heap);
+            slots.sort(LATEST_FIRST.reversed());
+            return slots;
+        }
+    }
+}
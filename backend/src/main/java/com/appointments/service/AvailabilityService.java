@@ -0,0 +1,216 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentInterval;
+import com.appointments.dto.AvailabilityResponse;
+import com.appointments.dto.TimeSlot;
+import com.appointments.dto.WorkingHoursSnapshot;
+import com.appointments.entity.StaffBreak;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.repository.StaffBreakRepository;
+import com.appointments.util.SlotBitmap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Computes bookable start times for a staff member on a given day.
+ *
+ * Working hours, breaks and appointments are folded into a per-day bitmap of 5-minute slots
+ * (see {@link SlotBitmap}); the bookable starts for a service are then found with word-level
+ * shift-and passes instead of comparing interval objects. All times are UTC, as stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityService {
+
+    private final ReferenceDataService referenceDataService;
+    private final StaffBreakRepository staffBreakRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AvailabilityCache availabilityCache;
+
+    @Value("${availability.default-duration-minutes:30}")
+    private int defaultDurationMinutes;
+
+    @Value("${availability.step-minutes:15}")
+    private int stepMinutes;
+
+    @Transactional(readOnly = true)
+    public AvailabilityResponse getAvailability(Long staffId, LocalDate date, Long serviceId) {
+        if (!availabilityCache.isCached(staffId)) {
+            referenceDataService.getStaff(staffId);
+        }
+
+        int durationMinutes = defaultDurationMinutes;
+        if (serviceId != null) {
+            durationMinutes = referenceDataService.getService(serviceId).getDurationMinutes();
+        }
+
+        long[] free = SlotBitmap.newDay();
+        freeSlots(staffId, date, free);
+
+        return AvailabilityResponse.builder()
+                .date(date)
+                .staffId(staffId)
+                .serviceId(serviceId)
+                .durationMinutes(durationMinutes)
+                .availableSlots(bookableSlots(free, date, durationMinutes))
+                .build();
+    }
+
+    /**
+     * Fill {@code free} with the staff member's free slots, from the cache when the date is inside its window
+     */
+    void freeSlots(Long staffId, LocalDate date, long[] free) {
+        if (!availabilityCache.covers(date) || !availabilityCache.copyFreeDay(staffId, date, free)) {
+            loadFreeSlots(staffId, date, free);
+        }
+    }
+
+    /**
+     * Fill {@code free} with the staff member's free slots on the given day
+     */
+    void loadFreeSlots(Long staffId, LocalDate date, long[] free) {
+        SlotBitmap.clear(free);
+        int dayOfWeek = dayOfWeek(date);
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+
+        applyOpenHours(free, 0, date,
+                referenceDataService.getWorkingHours(staffId),
+                staffBreakRepository.findByStaffIdAndDateRange(staffId, dayStart, dayEnd, dayOfWeek));
+
+        // Overlap query, so appointments running past midnight are included
+        for (AppointmentInterval interval : appointmentRepository.findActiveIntervalsByStaffIdAndRange(staffId, dayStart, dayEnd)) {
+            markBusy(free, 0, date, interval.getStartTime(), interval.getEndTime());
+        }
+    }
+
+    /**
+     * Set the working-hour slots of {@code date} and clear the breaks falling on it.
+     * Entries for other days of the week or other dates are ignored, so callers may pass a wider list.
+     */
+    static void applyOpenHours(long[] bits, int offset, LocalDate date,
+                               List<WorkingHoursSnapshot> workingHours, List<StaffBreak> breaks) {
+        int dayOfWeek = dayOfWeek(date);
+
+        for (WorkingHoursSnapshot hours : workingHours) {
+            if (hours.getDayOfWeek() == dayOfWeek) {
+                SlotBitmap.setRange(bits, offset,
+                        SlotBitmap.slotCeil(hours.getStartTime()),
+                        SlotBitmap.slotOf(hours.getEndTime()));
+            }
+        }
+
+        for (StaffBreak staffBreak : breaks) {
+            if (staffBreak.getBreakType() == StaffBreak.BreakType.RECURRING) {
+                if (staffBreak.getDayOfWeek() != null && staffBreak.getDayOfWeek() == dayOfWeek) {
+                    SlotBitmap.clearRange(bits, offset,
+                            SlotBitmap.slotOf(staffBreak.getStartTime().toLocalTime()),
+                            SlotBitmap.slotCeil(staffBreak.getEndTime().toLocalTime()));
+                }
+            } else {
+                markBusy(bits, offset, date, staffBreak.getStartTime(), staffBreak.getEndTime());
+            }
+        }
+    }
+
+    /**
+     * Day of week as stored in the schedule tables: 0=Sunday, 6=Saturday
+     */
+    static int dayOfWeek(LocalDate date) {
+        return date.getDayOfWeek().getValue() % 7;
+    }
+
+    /**
+     * Clear the slots of {@code date} covered by [start, end), clipped to the day
+     */
+    static void markBusy(long[] bits, int offset, LocalDate date, LocalDateTime start, LocalDateTime end) {
+        if (overlapsDay(date, start, end)) {
+            SlotBitmap.clearRange(bits, offset, firstCoveredSlot(date, start), lastCoveredSlot(date, end));
+        }
+    }
+
+    static boolean overlapsDay(LocalDate date, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime dayStart = date.atStartOfDay();
+        return end.isAfter(dayStart) && start.isBefore(dayStart.plusDays(1));
+    }
+
+    /**
+     * First slot of {@code date} touched by an interval starting at {@code start}
+     */
+    static int firstCoveredSlot(LocalDate date, LocalDateTime start) {
+        return start.toLocalDate().isBefore(date) ? 0 : SlotBitmap.slotOf(start.toLocalTime());
+    }
+
+    /**
+     * Exclusive end slot of {@code date} touched by an interval ending at {@code end}
+     */
+    static int lastCoveredSlot(LocalDate date, LocalDateTime end) {
+        return end.toLocalDate().isAfter(date) ? SlotBitmap.SLOTS_PER_DAY : SlotBitmap.slotCeil(end.toLocalTime());
+    }
+
+    /**
+     * Bookable slots of the given length, aligned to {@code availability.step-minutes}.
+     * Consumes {@code free}: the bitmap is reduced in place to run starts.
+     */
+    List<TimeSlot> bookableSlots(long[] free, LocalDate date, int durationMinutes) {
+        List<TimeSlot> slots = new ArrayList<>();
+        int firstSlot = firstBookableSlot(date);
+        if (firstSlot < 0) {
+            return slots;
+        }
+
+        LocalDateTime dayStart = date.atStartOfDay();
+        forEachBookableStart(free, durationMinutes, firstSlot, slot -> {
+            LocalDateTime start = dayStart.plusMinutes((long) slot * SlotBitmap.SLOT_MINUTES);
+            slots.add(new TimeSlot(start, start.plusMinutes(durationMinutes)));
+            return true;
+        });
+        return slots;
+    }
+
+    /**
+     * Visit bookable start slots in ascending order until the visitor returns false.
+     * Consumes {@code free}: the bitmap is reduced in place to run starts.
+     */
+    void forEachBookableStart(long[] free, int durationMinutes, int firstSlot, IntPredicate visitor) {
+        int durationSlots = (durationMinutes + SlotBitmap.SLOT_MINUTES - 1) / SlotBitmap.SLOT_MINUTES;
+        int stepSlots = Math.max(1, stepMinutes / SlotBitmap.SLOT_MINUTES);
+        SlotBitmap.keepRunStarts(free, durationSlots);
+
+        int slot = SlotBitmap.nextSetBit(free, firstSlot);
+        while (slot >= 0) {
+            int misalignment = slot % stepSlots;
+            if (misalignment != 0) {
+                slot = SlotBitmap.nextSetBit(free, slot + stepSlots - misalignment);
+                continue;
+            }
+            if (!visitor.test(slot)) {
+                return;
+            }
+            slot = SlotBitmap.nextSetBit(free, slot + stepSlots);
+        }
+    }
+
+    /**
+     * First slot that is still in the future on the given day, or -1 if the day has passed
+     */
+    static int firstBookableSlot(LocalDate date) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDate today = now.toLocalDate();
+        if (date.isBefore(today)) {
+            return -1;
+        }
+        return date.isEqual(today) ? SlotBitmap.slotCeil(now.toLocalTime()) : 0;
+    }
+}
@@ -0,0 +1,288 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentInterval;
+import com.appointments.dto.AppointmentRequest;
+import com.appointments.dto.AppointmentResponse;
+import com.appointments.dto.BatchAppointmentRequest;
+import com.appointments.dto.BatchAppointmentResponse;
+import com.appointments.entity.Appointment;
+import com.appointments.entity.AppointmentSeries;
+import com.appointments.entity.OutboxEvent;
+import com.appointments.entity.StaffProfile;
+import com.appointments.entity.User;
+import com.appointments.exception.AppointmentConflictException;
+import com.appointments.exception.ResourceNotFoundException;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.repository.ServiceRepository;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.repository.UserRepository;
+import com.appointments.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books many appointments in one transaction.
+ *
+ * Items are validated up front with one lookup per entity type, then conflicts are checked in a single
+ * pass per staff member: one range query over the envelope of that staff member's items, compared
+ * against the sorted items with a merge scan. Appointments and reminders are persisted with
+ * {@code saveAll}, which Hibernate turns into JDBC batches now that ids come from pooled sequences.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchBookingService {
+
+    private static final Comparator<PendingItem> BY_START = Comparator
+            .comparing((PendingItem item) -> item.request.getStartTime())
+            .thenComparing(item -> item.request.getEndTime());
+
+    private final AppointmentRepository appointmentRepository;
+    private final UserRepository userRepository;
+    private final StaffProfileRepository staffProfileRepository;
+    private final ServiceRepository serviceRepository;
+    private final OutboxService outboxService;
+    private final StaffBookingIndex bookingIndex;
+    private final SlotClaimService slotClaimService;
+    private final AvailabilityCache availabilityCache;
+
+    @Value("${booking.batch.max-items:1000}")
+    private int maxItems;
+
+    @Transactional
+    public BatchAppointmentResponse createAppointments(BatchAppointmentRequest request, AuthenticatedUser principal) {
+        log.info("Creating batch of {} appointments for user: {} (mode {})",
+                request.getAppointments().size(), principal.getId(), request.getMode());
+
+        User user = userRepository.getReferenceById(principal.getId());
+
+        return book(request.getAppointments(), request.getMode(), user, null);
+    }
+
+    /**
+     * Book already-expanded items for {@code user}, optionally as the occurrences of {@code series}
+     */
+    @Transactional
+    public BatchAppointmentResponse book(List<AppointmentRequest> items, BatchAppointmentRequest.Mode mode,
+                                         User user, AppointmentSeries series) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + maxItems + " appointments");
+        }
+        boolean partial = mode == BatchAppointmentRequest.Mode.PARTIAL;
+
+        List<BatchAppointmentResponse.ItemError> failed = new ArrayList<>();
+        Map<Long, List<PendingItem>> byStaff = validate(items, partial, failed);
+
+        List<PendingItem> accepted = new ArrayList<>();
+        for (Map.Entry<Long, List<PendingItem>> entry : byStaff.entrySet()) {
+            accepted.addAll(checkConflicts(entry.getKey(), entry.getValue(), partial, failed));
+        }
+
+        List<Appointment> appointments = new ArrayList<>(accepted.size());
+        for (PendingItem item : accepted) {
+            item.appointment = Appointment.builder()
+                    .user(user)
+                    .staff(item.staff)
+                    .service(item.service)
+                    .series(series)
+                    .startTime(item.request.getStartTime())
+                    .endTime(item.request.getEndTime())
+                    .status(Appointment.Status.PENDING)
+                    .notes(item.request.getNotes())
+                    .build();
+            appointments.add(item.appointment);
+        }
+
+        if (!appointments.isEmpty()) {
+            appointmentRepository.saveAllAndFlush(appointments);
+
+            // Optimistic mode: one batched slot insert for the whole request
+            if (slotClaimService.isEnabled()) {
+                slotClaimService.claimAll(appointments);
+            }
+
+            for (PendingItem item : accepted) {
+                item.hold.bind(item.appointment.getId());
+                availabilityCache.onBooked(item.staff.getId(), item.appointment.getStartTime(), item.appointment.getEndTime());
+            }
+
+            // Reminders and calendar sync run after commit, from the outbox
+            outboxService.publishAll(appointments.stream().map(Appointment::getId).collect(Collectors.toList()),
+                    OutboxEvent.Type.APPOINTMENT_CREATED);
+        }
+
+        log.info("Batch booked {} of {} appointments", appointments.size(), items.size());
+
+        List<AppointmentResponse> created = accepted.stream()
+                .sorted(Comparator.comparingInt(item -> item.index))
+                .map(item -> AppointmentService.mapToResponse(item.appointment))
+                .collect(Collectors.toList());
+        failed.sort(Comparator.comparingInt(BatchAppointmentResponse.ItemError::getIndex));
+
+        return BatchAppointmentResponse.builder()
+                .created(created)
+                .failed(failed)
+                .build();
+    }
+
+    /**
+     * Resolve staff and services with one query each, and group valid items by staff member
+     */
+    private Map<Long, List<PendingItem>> validate(List<AppointmentRequest> items, boolean partial,
+                                                  List<BatchAppointmentResponse.ItemError> failed) {
+        Set<Long> staffIds = items.stream().map(AppointmentRequest::getStaffId).collect(Collectors.toSet());
+        Set<Long> serviceIds = items.stream().map(AppointmentRequest::getServiceId).collect(Collectors.toSet());
+        Map<Long, StaffProfile> staffById = staffProfileRepository.findAllById(staffIds).stream()
+                .collect(Collectors.toMap(StaffProfile::getId, Function.identity()));
+        Map<Long, com.appointments.entity.Service> servicesById = serviceRepository.findAllById(serviceIds).stream()
+                .collect(Collectors.toMap(com.appointments.entity.Service::getId, Function.identity()));
+
+        Map<Long, List<PendingItem>> byStaff = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            AppointmentRequest item = items.get(i);
+            StaffProfile staff = staffById.get(item.getStaffId());
+            com.appointments.entity.Service service = servicesById.get(item.getServiceId());
+
+            if (!item.getEndTime().isAfter(item.getStartTime())) {
+                reject(failed, partial, i, "End time must be after start time", IllegalArgumentException::new);
+            } else if (staff == null) {
+                reject(failed, partial, i, "Staff not found", ResourceNotFoundException::new);
+            } else if (service == null) {
+                reject(failed, partial, i, "Service not found", ResourceNotFoundException::new);
+            } else {
+                byStaff.computeIfAbsent(staff.getId(), id -> new ArrayList<>())
+                        .add(new PendingItem(i, item, staff, service));
+            }
+        }
+        return byStaff;
+    }
+
+    /**
+     * Check one staff member's items against each other, the booking index and the database
+     *
+     * @return the items that can be booked, each holding a booking index hold
+     */
+    private List<PendingItem> checkConflicts(Long staffId, List<PendingItem> items, boolean partial,
+                                             List<BatchAppointmentResponse.ItemError> failed) {
+        items.sort(BY_START);
+
+        // Overlaps inside the batch, then the in-memory index
+        List<PendingItem> candidates = new ArrayList<>(items.size());
+        LocalDateTime acceptedUntil = null;
+        for (PendingItem item : items) {
+            LocalDateTime start = item.request.getStartTime();
+            if (acceptedUntil != null && start.isBefore(acceptedUntil)) {
+                reject(failed, partial, item.index, "Overlaps another appointment in this batch",
+                        AppointmentConflictException::new);
+                continue;
+            }
+            try {
+                item.hold = bookingIndex.hold(staffId, start, item.request.getEndTime(), null);
+            } catch (AppointmentConflictException e) {
+                reject(failed, partial, item.index, e.getMessage(), AppointmentConflictException::new);
+                continue;
+            }
+            candidates.add(item);
+            acceptedUntil = item.request.getEndTime();
+        }
+
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        // Slot-claim mode only needs the pre-check to report individual items; the slot keys enforce the rest
+        boolean locking = !slotClaimService.isEnabled();
+        if (!locking && !partial) {
+            return candidates;
+        }
+
+        LocalDateTime from = candidates.get(0).request.getStartTime();
+        LocalDateTime to = candidates.stream().map(item -> item.request.getEndTime())
+                .max(Comparator.naturalOrder()).orElseThrow();
+
+        List<Appointment> locked = List.of();
+        List<BusyInterval> busy = new ArrayList<>();
+        if (locking) {
+            locked = appointmentRepository.findConflictingAppointmentsForUpdate(staffId, from, to);
+            for (Appointment appointment : locked) {
+                busy.add(new BusyInterval(appointment.getStartTime(), appointment.getEndTime()));
+            }
+        } else {
+            for (AppointmentInterval interval : appointmentRepository.findActiveIntervalsByStaffIdAndRange(staffId, from, to)) {
+                busy.add(new BusyInterval(interval.getStartTime(), interval.getEndTime()));
+            }
+        }
+        if (busy.isEmpty()) {
+            return candidates;
+        }
+        busy.sort(Comparator.comparing(BusyInterval::startTime));
+
+        // Merge scan: both lists are sorted by start, so the busy cursor only moves forward
+        List<PendingItem> accepted = new ArrayList<>(candidates.size());
+        int cursor = 0;
+        boolean conflicted = false;
+        for (PendingItem item : candidates) {
+            LocalDateTime start = item.request.getStartTime();
+            while (cursor < busy.size() && !busy.get(cursor).endTime().isAfter(start)) {
+                cursor++;
+            }
+            if (cursor < busy.size() && busy.get(cursor).startTime().isBefore(item.request.getEndTime())) {
+                log.warn("Appointment conflict detected for staff {} at time {}", staffId, start);
+                conflicted = true;
+                reject(failed, partial, item.index, "This time slot is no longer available",
+                        AppointmentConflictException::new);
+                item.hold.release();
+                continue;
+            }
+            accepted.add(item);
+        }
+        if (conflicted) {
+            bookingIndex.recordAll(staffId, locked);
+        }
+        return accepted;
+    }
+
+    /**
+     * Record a failed item in partial mode, or abort the whole batch otherwise
+     */
+    private static void reject(List<BatchAppointmentResponse.ItemError> failed, boolean partial, int index,
+                               String message, Function<String, RuntimeException> exception) {
+        if (!partial) {
+            throw exception.apply("Item " + index + ": " + message);
+        }
+        failed.add(new BatchAppointmentResponse.ItemError(index, message));
+    }
+
+    private record BusyInterval(LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
+    private static final class PendingItem {
+        private final int index;
+        private final AppointmentRequest request;
+        private final StaffProfile staff;
+        private final com.appointments.entity.Service service;
+        private StaffBookingIndex.Hold hold;
+        private Appointment appointment;
+
+        private PendingItem(int index, AppointmentRequest request, StaffProfile staff,
+                            com.appointments.entity.Service service) {
+            this.index = index;
+            this.request = request;
+            this.staff = staff;
+            this.service = service;
+        }
+    }
+}
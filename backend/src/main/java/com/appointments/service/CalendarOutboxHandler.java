@@ -0,0 +1,33 @@
+package com.appointments.service;
+
+import com.appointments.entity.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queues a calendar push for every booking change. Creates, updates and cancellations all come
+ * down to "push the latest state", which the calendar pusher sends in provider batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class CalendarOutboxHandler implements OutboxHandler {
+
+    public static final String TOPIC = "calendar";
+
+    private final CalendarSyncService calendarSyncService;
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.Type type) {
+        return true;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        calendarSyncService.requestPush(event.getAggregateId());
+    }
+}
@@ -1,34 +1,149 @@
 package com.appointments.service;
 
+import com.appointments.calendar.CalendarPushResult;
+import com.appointments.dto.CalendarPushItem;
 import com.appointments.entity.Appointment;
+import com.appointments.entity.CalendarEvent;
+import com.appointments.entity.OAuthToken;
+import com.appointments.entity.User;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.repository.CalendarEventRepository;
+import com.appointments.repository.OAuthTokenRepository;
+import com.appointments.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Service for syncing appointments with external calendars (Google, Microsoft)
- * This is a stub implementation - full implementation requires OAuth flow setup
+ * Push state of appointments in external calendars (Google, Microsoft).
+ *
+ * A booking change only queues the appointment's {@link CalendarEvent} rows (one per calendar
+ * account linked by the staff member) and bumps their version. The pusher later claims due rows
+ * and sends the appointment's state as it is at that moment, so any number of changes before a
+ * push collapse into one call. Outcomes are recorded in {@code sync_status}.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CalendarSyncService {
 
-    public void syncAppointmentToCalendar(Appointment appointment) {
-        log.info("Syncing appointment {} to external calendar", appointment.getId());
-        // TODO: Implement Google Calendar and Microsoft Graph API integration
-        // 1. Get OAuth token for user
-        // 2. Create event in external calendar
-        // 3. Store external_event_id in appointment
+    private static final String PRIMARY_CALENDAR = "primary";
+
+    private final AppointmentRepository appointmentRepository;
+    private final CalendarEventRepository calendarEventRepository;
+    private final OAuthTokenRepository oAuthTokenRepository;
+
+    private final List<Runnable> pendingListeners = new CopyOnWriteArrayList<>();
+
+    @Value("${calendar.push.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${calendar.push.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${calendar.push.retry.base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${calendar.push.retry.max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    /**
+     * Called after a transaction that queued pushes commits
+     */
+    public void onPending(Runnable listener) {
+        pendingListeners.add(listener);
+    }
+
+    /**
+     * Queue a push of the appointment's current state to every calendar of its staff member.
+     * Cancelled appointments are deleted from the calendars they were pushed to.
+     */
+    @Transactional
+    public void requestPush(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
+        if (appointment == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        boolean cancelled = appointment.getStatus() == Appointment.Status.CANCELLED;
+        CalendarEvent.PendingAction action = cancelled
+                ? CalendarEvent.PendingAction.DELETE : CalendarEvent.PendingAction.UPSERT;
+
+        int queued = calendarEventRepository.markPending(appointmentId, action, now);
+        if (!cancelled) {
+            User account = appointment.getStaff().getUser();
+            List<CalendarEvent.Provider> existing = calendarEventRepository.findProvidersByAppointmentId(appointmentId);
+            for (OAuthToken.Provider linked : oAuthTokenRepository.findProvidersByUserId(account.getId())) {
+                CalendarEvent.Provider provider = CalendarEvent.Provider.valueOf(linked.name());
+                if (existing.contains(provider)) {
+                    continue;
+                }
+                calendarEventRepository.save(CalendarEvent.builder()
+                        .appointment(appointment)
+                        .accountUser(account)
+                        .provider(provider)
+                        .calendarId(PRIMARY_CALENDAR)
+                        .syncStatus(CalendarEvent.SyncStatus.PENDING)
+                        .pendingAction(action)
+                        .nextSyncAt(now)
+                        .lastSyncedAt(now)
+                        .build());
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            TransactionHooks.afterCommit(() -> pendingListeners.forEach(Runnable::run));
+        }
     }
 
-    public void updateCalendarEvent(Appointment appointment) {
-        log.info("Updating calendar event for appointment {}", appointment.getId());
-        // TODO: Update existing calendar event
+    /**
+     * Claim up to {@code limit} due events under a lease, returned with the state to push
+     */
+    @Transactional
+    public List<CalendarPushItem> claimDue(LocalDateTime now, int limit) {
+        List<Long> ids = calendarEventRepository.lockDueIds(now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        calendarEventRepository.lease(ids, now.plusSeconds(leaseSeconds));
+        return calendarEventRepository.findPushItems(ids);
     }
 
-    public void deleteCalendarEvent(Appointment appointment) {
-        log.info("Deleting calendar event for appointment {}", appointment.getId());
-        // TODO: Delete calendar event
+    /**
+     * Record the outcome of each pushed item. Successes and permanent failures only stick if the
+     * appointment did not change during the push; otherwise the event is queued again right away.
+     */
+    @Transactional
+    public void recordResults(List<CalendarPushItem> items, List<CalendarPushResult> results) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < items.size(); i++) {
+            CalendarPushItem item = items.get(i);
+            CalendarPushResult result = results.get(i);
+            if (result.success()) {
+                boolean deleted = item.getPendingAction() == CalendarEvent.PendingAction.DELETE;
+                String externalEventId = result.externalEventId() != null ? result.externalEventId() : item.getExternalEventId();
+                int updated = calendarEventRepository.markSynced(item.getId(), item.getSyncVersion(),
+                        deleted ? CalendarEvent.SyncStatus.DELETED : CalendarEvent.SyncStatus.SYNCED, externalEventId, now);
+                if (updated == 0) {
+                    calendarEventRepository.requeue(item.getId(), externalEventId, 0, null, now);
+                }
+            } else if (result.retryable() && item.getSyncAttempts() + 1 < maxAttempts) {
+                long delaySeconds = Math.min(retryBaseSeconds << Math.min(item.getSyncAttempts(), 20), retryMaxSeconds);
+                calendarEventRepository.requeue(item.getId(), result.externalEventId(), 1, result.error(),
+                        now.plusSeconds(delaySeconds));
+            } else if (calendarEventRepository.markFailed(item.getId(), item.getSyncVersion(), result.error()) == 0) {
+                calendarEventRepository.requeue(item.getId(), result.externalEventId(), 1, result.error(), now);
+            } else {
+                log.warn("Calendar push for appointment {} to {} failed: {}", item.getAppointmentId(),
+                        item.getProvider(), result.error());
+            }
+        }
     }
 }
@@ -0,0 +1,207 @@
+package com.appointments.service;
+
+import com.appointments.calendar.CalendarChanges;
+import com.appointments.calendar.ExternalCalendarEvent;
+import com.appointments.dto.CalendarSyncItem;
+import com.appointments.entity.CalendarEvent;
+import com.appointments.entity.StaffBreak;
+import com.appointments.entity.StaffProfile;
+import com.appointments.repository.CalendarEventRepository;
+import com.appointments.repository.StaffBreakRepository;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.repository.WebhookSubscriptionRepository;
+import com.appointments.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Inbound side of calendar sync: busy time in a staff member's external calendars blocks their
+ * availability.
+ *
+ * A webhook notification only marks its subscription as wanting a sync. Workers claim marked
+ * subscriptions once the debounce window has passed, pull the changes since the stored sync token
+ * and hand them to {@link #applyChanges}, which mirrors busy events as ONE_TIME staff breaks keyed by
+ * the provider's event id. Events pushed from here (appointments) are skipped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InboundCalendarSyncService {
+
+    private static final int IN_CLAUSE_SIZE = 500;
+
+    private final WebhookSubscriptionRepository webhookSubscriptionRepository;
+    private final StaffProfileRepository staffProfileRepository;
+    private final StaffBreakRepository staffBreakRepository;
+    private final CalendarEventRepository calendarEventRepository;
+
+    private final List<Runnable> requestListeners = new CopyOnWriteArrayList<>();
+
+    @Value("${calendar.inbound.debounce-ms:3000}")
+    private long debounceMillis;
+
+    @Value("${calendar.inbound.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${calendar.inbound.retry-seconds:60}")
+    private long retrySeconds;
+
+    @Value("${calendar.inbound.full-sync-days:7}")
+    private long fullSyncDays;
+
+    /**
+     * Called after a notification requested a sync
+     */
+    public void onRequested(Runnable listener) {
+        requestListeners.add(listener);
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    /**
+     * Record a change notification for a channel
+     *
+     * @return false if no active subscription matches the channel and client state
+     */
+    @Transactional
+    public boolean requestSync(CalendarEvent.Provider provider, String channelId, String clientState) {
+        if (webhookSubscriptionRepository.requestSync(provider, channelId, clientState, LocalDateTime.now(ZoneOffset.UTC)) == 0) {
+            return false;
+        }
+        TransactionHooks.afterCommit(() -> requestListeners.forEach(Runnable::run));
+        return true;
+    }
+
+    /**
+     * Claim up to {@code limit} subscriptions whose debounce window has passed, under a lease
+     */
+    @Transactional
+    public List<CalendarSyncItem> claimDue(LocalDateTime now, int limit) {
+        List<Long> ids = webhookSubscriptionRepository.lockDueIds(now.minusNanos(debounceMillis * 1_000_000), now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        webhookSubscriptionRepository.claim(ids, now.plusSeconds(leaseSeconds));
+        return webhookSubscriptionRepository.findSyncItems(ids);
+    }
+
+    /**
+     * Mirror pulled changes into the account owner's breaks and store the new sync token
+     */
+    @Transactional
+    public void applyChanges(CalendarSyncItem item, CalendarChanges changes) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        StaffProfile staff = staffProfileRepository.findByUserId(item.getUserId()).orElse(null);
+        if (staff != null) {
+            applyBusyBlocks(staff, item.getProvider(), changes, now);
+        }
+        webhookSubscriptionRepository.markSynced(item.getId(), changes.syncToken(), changes.fullSync(), now);
+    }
+
+    /**
+     * Release a failed sync; it is retried from the same token
+     */
+    @Transactional
+    public void requeue(Long subscriptionId) {
+        webhookSubscriptionRepository.requeue(subscriptionId, LocalDateTime.now(ZoneOffset.UTC).plusSeconds(retrySeconds));
+    }
+
+    /**
+     * Release a subscription that cannot be synced until its account is linked again; the next
+     * notification or full sync requests it anew
+     */
+    @Transactional
+    public void release(Long subscriptionId) {
+        webhookSubscriptionRepository.release(subscriptionId);
+    }
+
+    /**
+     * Request a full listing for subscriptions whose last one is older than {@code calendar.inbound.full-sync-days}
+     */
+    @Transactional
+    public int requestFullSyncs() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        int requested = webhookSubscriptionRepository.requestFullSync(now.minusDays(fullSyncDays), now);
+        if (requested > 0) {
+            TransactionHooks.afterCommit(() -> requestListeners.forEach(Runnable::run));
+        }
+        return requested;
+    }
+
+    private void applyBusyBlocks(StaffProfile staff, CalendarEvent.Provider provider, CalendarChanges changes,
+                                 LocalDateTime now) {
+        // Pages come in change order, so the last version of an event wins
+        Map<String, ExternalCalendarEvent> latest = new LinkedHashMap<>();
+        for (ExternalCalendarEvent event : changes.events()) {
+            latest.put(event.id(), event);
+        }
+        List<String> eventIds = new ArrayList<>(latest.keySet());
+        Set<String> pushed = new HashSet<>();
+        List<StaffBreak> existing = new ArrayList<>();
+        for (int from = 0; from < eventIds.size(); from += IN_CLAUSE_SIZE) {
+            List<String> chunk = eventIds.subList(from, Math.min(from + IN_CLAUSE_SIZE, eventIds.size()));
+            pushed.addAll(calendarEventRepository.findPushedExternalEventIds(provider, chunk));
+            if (!changes.fullSync()) {
+                existing.addAll(staffBreakRepository.findByStaffIdAndProviderAndExternalEventIdIn(staff.getId(),
+                        provider, chunk));
+            }
+        }
+        if (changes.fullSync()) {
+            existing = staffBreakRepository.findByStaffIdAndProviderAndEndTimeAfter(staff.getId(), provider, now);
+        }
+        Map<String, StaffBreak> breaks = new LinkedHashMap<>();
+        existing.forEach(staffBreak -> breaks.put(staffBreak.getExternalEventId(), staffBreak));
+
+        List<StaffBreak> saved = new ArrayList<>();
+        List<StaffBreak> removed = new ArrayList<>();
+        for (ExternalCalendarEvent event : latest.values()) {
+            StaffBreak staffBreak = breaks.remove(event.id());
+            boolean blocks = event.busy() && !pushed.contains(event.id())
+                    && event.endTime().isAfter(now) && event.startTime().isBefore(event.endTime());
+            if (!blocks) {
+                if (staffBreak != null) {
+                    removed.add(staffBreak);
+                }
+            } else if (staffBreak == null) {
+                saved.add(StaffBreak.builder()
+                        .staff(staff)
+                        .breakType(StaffBreak.BreakType.ONE_TIME)
+                        .startTime(event.startTime())
+                        .endTime(event.endTime())
+                        .reason(provider == CalendarEvent.Provider.GOOGLE
+                                ? "Busy in Google Calendar" : "Busy in Outlook calendar")
+                        .provider(provider)
+                        .externalEventId(event.id())
+                        .build());
+            } else if (!event.startTime().equals(staffBreak.getStartTime())
+                    || !event.endTime().equals(staffBreak.getEndTime())) {
+                staffBreak.setStartTime(event.startTime());
+                staffBreak.setEndTime(event.endTime());
+                saved.add(staffBreak);
+            }
+        }
+        if (changes.fullSync()) {
+            // Not in a full listing: deleted while no token was valid
+            removed.addAll(breaks.values());
+        }
+        staffBreakRepository.deleteAll(removed);
+        staffBreakRepository.saveAll(saved);
+        log.debug("Calendar sync for staff {} from {}: {} events, {} breaks saved, {} removed", staff.getId(),
+                provider, latest.size(), saved.size(), removed.size());
+    }
+}
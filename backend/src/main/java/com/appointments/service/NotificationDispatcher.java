@@ -0,0 +1,171 @@
+package com.appointments.service;
+
+import com.appointments.service.NotificationService.EmailRecipient;
+import com.appointments.util.MessageTemplate;
+import com.appointments.util.TokenBucket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Sends notifications concurrently, with separate limits per provider.
+ *
+ * Each provider gets its own lane: a fixed pool whose size caps the requests in flight, and a
+ * token bucket matching the provider's rate quota. A send that cannot get a token within
+ * {@code notifications.acquire-timeout-ms} completes as failed and is retried by the caller's
+ * backoff. Results complete asynchronously; each HTTP call is bounded by the client's timeout.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.email.max-in-flight:16}")
+    private int emailMaxInFlight;
+
+    @Value("${notifications.email.rate-per-second:100}")
+    private double emailRatePerSecond;
+
+    /**
+     * Personalizations per SendGrid request; the v3 API accepts up to 1000
+     */
+    @Value("${notifications.email.batch-size:1000}")
+    private int emailBatchSize;
+
+    @Value("${notifications.sms.max-in-flight:8}")
+    private int smsMaxInFlight;
+
+    @Value("${notifications.sms.rate-per-second:10}")
+    private double smsRatePerSecond;
+
+    @Value("${notifications.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private Lane email;
+    private Lane sms;
+
+    @PostConstruct
+    public void init() {
+        email = new Lane("sendgrid", emailMaxInFlight, emailRatePerSecond);
+        sms = new Lane("twilio", smsMaxInFlight, smsRatePerSecond);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        email.executor.shutdown();
+        sms.executor.shutdown();
+    }
+
+    public CompletableFuture<Boolean> sendEmail(String to, String subject, String body) {
+        return email.submit(() -> notificationService.sendEmail(to, subject, body), false, Boolean::booleanValue);
+    }
+
+    /**
+     * Send one template to many recipients, up to {@code notifications.email.batch-size} per request.
+     * The returned results line up with {@code recipients}. If SendGrid rejects a batch as malformed,
+     * its recipients are retried one by one so a single bad address only fails its own reminder.
+     */
+    public List<CompletableFuture<Boolean>> sendEmails(MessageTemplate subject, MessageTemplate body,
+                                                       List<EmailRecipient> recipients) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(recipients.size());
+        for (int from = 0; from < recipients.size(); from += emailBatchSize) {
+            List<EmailRecipient> chunk = recipients.subList(from, Math.min(recipients.size(), from + emailBatchSize));
+            CompletableFuture<Integer> status = email.submit(
+                    () -> notificationService.sendEmailBatch(subject.getSource(), body.getSource(), chunk),
+                    0, NotificationDispatcher::isSuccess);
+            for (EmailRecipient recipient : chunk) {
+                results.add(status.thenCompose(code -> {
+                    if (isSuccess(code)) {
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    if (code == 400 && chunk.size() > 1) {
+                        return sendEmail(recipient.email(), subject.render(recipient.substitutions()),
+                                body.render(recipient.substitutions()));
+                    }
+                    return CompletableFuture.completedFuture(false);
+                }));
+            }
+        }
+        return results;
+    }
+
+    public CompletableFuture<Boolean> sendSms(String to, String body) {
+        return sms.submit(() -> notificationService.sendSMS(to, body), false, Boolean::booleanValue);
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private final class Lane {
+        private final String provider;
+        private final ThreadPoolExecutor executor;
+        private final TokenBucket rateLimit;
+        private final Timer sent;
+        private final Timer failed;
+
+        private Lane(String provider, int maxInFlight, double ratePerSecond) {
+            this.provider = provider;
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "notify-" + provider + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+            // One second of burst at the sustained rate
+            this.rateLimit = new TokenBucket(ratePerSecond, (int) Math.ceil(ratePerSecond));
+            this.sent = meterRegistry.timer("notifications.send", "provider", provider, "result", "sent");
+            this.failed = meterRegistry.timer("notifications.send", "provider", provider, "result", "failed");
+            Gauge.builder("notifications.queued", executor, e -> e.getQueue().size())
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+            Gauge.builder("notifications.in-flight", executor, ThreadPoolExecutor::getActiveCount)
+                    .tag("provider", provider)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Run one provider request on this lane once a rate-limit token is available
+         *
+         * @param notSent result when no token could be acquired in time
+         */
+        private <T> CompletableFuture<T> submit(Supplier<T> send, T notSent, Predicate<T> succeeded) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (!rateLimit.acquire(acquireTimeoutMs)) {
+                        log.warn("{} rate limit saturated, deferring send", provider);
+                        return notSent;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return notSent;
+                }
+                long start = System.nanoTime();
+                T result = send.get();
+                (succeeded.test(result) ? sent : failed).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            }, executor);
+        }
+    }
+}
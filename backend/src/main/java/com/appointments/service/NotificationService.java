@@ -1,18 +1,31 @@
 package com.appointments.service;
 
-import com.sendgrid.*;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
-import com.twilio.Twilio;
-import com.twilio.rest.api.v2010.account.Message;
-import com.twilio.type.PhoneNumber;
+import com.sendgrid.helpers.mail.objects.Personalization;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Blocking SendGrid and Twilio calls over one shared, connection-pooled HTTP client.
+ * Every call has a timeout, and the base URLs are configurable so the providers can be
+ * pointed at local stand-ins. Callers that send in bulk go through {@link NotificationDispatcher}.
+ */
 @Service
 @Slf4j
 public class NotificationService {
@@ -20,6 +33,9 @@ public class NotificationService {
     @Value("${sendgrid.api.key}")
     private String sendGridApiKey;
 
+    @Value("${sendgrid.api.base-url:https://api.sendgrid.com}")
+    private String sendGridBaseUrl;
+
     @Value("${sendgrid.from.email}")
     private String fromEmail;
 
@@ -32,13 +48,29 @@ public class NotificationService {
     @Value("${twilio.auth.token}")
     private String twilioAuthToken;
 
+    @Value("${twilio.api.base-url:https://api.twilio.com}")
+    private String twilioBaseUrl;
+
     @Value("${twilio.from.number}")
     private String twilioFromNumber;
 
+    @Value("${notifications.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${notifications.http.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    private HttpClient httpClient;
+    private String twilioAuthHeader;
+
     @PostConstruct
     public void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
         if (twilioAccountSid != null && !twilioAccountSid.isEmpty()) {
-            Twilio.init(twilioAccountSid, twilioAuthToken);
+            twilioAuthHeader = "Basic " + Base64.getEncoder().encodeToString(
+                    (twilioAccountSid + ":" + twilioAuthToken).getBytes(StandardCharsets.UTF_8));
             log.info("Twilio initialized");
         }
     }
@@ -49,36 +81,77 @@ public class NotificationService {
             return false;
         }
 
-        try {
-            Email from = new Email(fromEmail, fromName);
-            Email toEmail = new Email(to);
-            Content content = new Content("text/html", body);
-            Mail mail = new Mail(from, subject, toEmail, content);
+        Email from = new Email(fromEmail, fromName);
+        Email toEmail = new Email(to);
+        Content content = new Content("text/html", body);
+        Mail mail = new Mail(from, subject, toEmail, content);
 
-            SendGrid sg = new SendGrid(sendGridApiKey);
-            Request request = new Request();
-            request.setMethod(Method.POST);
-            request.setEndpoint("mail/send");
-            request.setBody(mail.build());
+        int status = postMail(mail, to);
+        if (status >= 200 && status < 300) {
+            log.debug("Email sent successfully to {}", to);
+            return true;
+        }
+        return false;
+    }
 
-            Response response = sg.api(request);
+    /**
+     * Send one templated message to many recipients in a single request, one personalization each.
+     * Every {@code key} in a recipient's substitutions is replaced in the subject and body for that
+     * recipient only. SendGrid accepts or rejects the request as a whole.
+     *
+     * @return the HTTP status, or 0 if the request did not complete
+     */
+    public int sendEmailBatch(String subject, String bodyTemplate, List<EmailRecipient> recipients) {
+        if (sendGridApiKey == null || sendGridApiKey.isEmpty()) {
+            log.warn("SendGrid API key not configured, skipping {} emails", recipients.size());
+            return 0;
+        }
 
-            if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-                log.info("Email sent successfully to {}", to);
-                return true;
-            } else {
-                log.error("Failed to send email. Status: {}, Body: {}",
-                        response.getStatusCode(), response.getBody());
-                return false;
+        Mail mail = new Mail();
+        mail.setFrom(new Email(fromEmail, fromName));
+        mail.setSubject(subject);
+        mail.addContent(new Content("text/html", bodyTemplate));
+        for (EmailRecipient recipient : recipients) {
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(recipient.email()));
+            recipient.substitutions().forEach(personalization::addSubstitution);
+            mail.addPersonalization(personalization);
+        }
+
+        int status = postMail(mail, recipients.size() + " recipients");
+        if (status >= 200 && status < 300) {
+            log.debug("Batch email sent to {} recipients", recipients.size());
+        }
+        return status;
+    }
+
+    private int postMail(Mail mail, String description) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(sendGridBaseUrl + "/v3/mail/send"))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Authorization", "Bearer " + sendGridApiKey)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mail.build()))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                log.error("Failed to send email to {}. Status: {}, Body: {}",
+                        description, response.statusCode(), response.body());
             }
+            return response.statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
         } catch (Exception e) {
-            log.error("Error sending email to {}", to, e);
-            return false;
+            log.error("Error sending email to {}", description, e);
+            return 0;
         }
     }
 
     public boolean sendSMS(String to, String body) {
-        if (twilioAccountSid == null || twilioAccountSid.isEmpty()) {
+        if (twilioAuthHeader == null) {
             log.warn("Twilio credentials not configured, skipping SMS");
             return false;
         }
@@ -89,17 +162,38 @@ public class NotificationService {
         }
 
         try {
-            Message message = Message.creator(
-                    new PhoneNumber(to),
-                    new PhoneNumber(twilioFromNumber),
-                    body
-            ).create();
-
-            log.info("SMS sent successfully to {}. SID: {}", to, message.getSid());
-            return true;
+            String form = "To=" + URLEncoder.encode(to, StandardCharsets.UTF_8)
+                    + "&From=" + URLEncoder.encode(twilioFromNumber, StandardCharsets.UTF_8)
+                    + "&Body=" + URLEncoder.encode(body, StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(
+                            twilioBaseUrl + "/2010-04-01/Accounts/" + twilioAccountSid + "/Messages.json"))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Authorization", twilioAuthHeader)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                log.debug("SMS sent successfully to {}", to);
+                return true;
+            } else {
+                log.error("Failed to send SMS. Status: {}, Body: {}", response.statusCode(), response.body());
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             log.error("Error sending SMS to {}", to, e);
             return false;
         }
     }
+
+    /**
+     * One personalization of a batch email: the address and its template substitutions
+     */
+    public record EmailRecipient(String email, Map<String, String> substitutions) {
+    }
 }
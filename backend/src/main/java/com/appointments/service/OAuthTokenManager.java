@@ -0,0 +1,293 @@
+package com.appointments.service;
+
+import com.appointments.calendar.CalendarProvider;
+import com.appointments.calendar.TokenGrant;
+import com.appointments.calendar.TokenRefreshException;
+import com.appointments.dto.OAuthTokenState;
+import com.appointments.entity.CalendarEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Access tokens of linked calendar accounts, cached in memory and refreshed ahead of expiry.
+ *
+ * A background scan claims tokens expiring within {@code oauth.refresh.ahead-seconds} along
+ * idx_expires, so sync workers normally find a valid token in the cache without touching the
+ * database or waiting for a refresh. Only a token that is about to expire makes a caller wait.
+ * Refreshes of one account are single-flight: concurrent callers share the refresh in progress.
+ * Across nodes, a refresh only stores its result if the token was not replaced meanwhile.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OAuthTokenManager {
+
+    private final OAuthTokenService oAuthTokenService;
+    private final List<CalendarProvider> providerList;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${oauth.refresh.ahead-seconds:600}")
+    private long refreshAheadSeconds;
+
+    @Value("${oauth.refresh.min-validity-seconds:60}")
+    private long minValiditySeconds;
+
+    @Value("${oauth.refresh.batch-size:200}")
+    private int batchSize;
+
+    @Value("${oauth.refresh.concurrency:4}")
+    private int concurrency;
+
+    @Value("${oauth.refresh.wait-ms:10000}")
+    private long waitMillis;
+
+    @Value("${oauth.refresh.retry.base-seconds:60}")
+    private long retryBaseSeconds;
+
+    @Value("${oauth.refresh.retry.max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    private final Map<CalendarEvent.Provider, CalendarProvider> providers = new EnumMap<>(CalendarEvent.Provider.class);
+    private final Map<TokenKey, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<TokenKey, CompletableFuture<CachedToken>> refreshes = new ConcurrentHashMap<>();
+    private ExecutorService refreshers;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        providerList.forEach(provider -> providers.put(provider.getProvider(), provider));
+        refreshers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "oauth-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        hits = meterRegistry.counter("oauth.token.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("oauth.token.cache.requests", "result", "miss");
+        Gauge.builder("oauth.token.cache.size", tokens, Map::size)
+                .description("Access tokens held in memory")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshers.shutdown();
+    }
+
+    /**
+     * A valid access token for the account, or empty if the account is not linked
+     *
+     * @throws TokenRefreshException if the token has expired and could not be refreshed
+     */
+    public Optional<String> getAccessToken(Long userId, CalendarEvent.Provider provider) {
+        TokenKey key = new TokenKey(userId, provider);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        CachedToken cached = tokens.get(key);
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            cached = oAuthTokenService.findState(userId, provider).map(CachedToken::of).orElse(null);
+            if (cached == null) {
+                return Optional.empty();
+            }
+            tokens.put(key, cached);
+        }
+
+        if (cached.expiresAt().isAfter(now.plusSeconds(minValiditySeconds))) {
+            if (cached.refreshable() && cached.expiresAt().isBefore(now.plusSeconds(refreshAheadSeconds))
+                    && !now.isBefore(cached.retryAt())) {
+                // The background scan has not got to it yet; refresh without making the caller wait
+                refresh(key, null);
+            }
+            return Optional.of(cached.accessToken());
+        }
+        if (!cached.refreshable()) {
+            throw new TokenRefreshException("Token expired and cannot be refreshed", true);
+        }
+        if (now.isBefore(cached.retryAt())) {
+            throw new TokenRefreshException("Token expired; refresh is backing off after a failure", false);
+        }
+        try {
+            CachedToken refreshed = refresh(key, null).get(waitMillis, TimeUnit.MILLISECONDS);
+            return Optional.ofNullable(refreshed).map(CachedToken::accessToken);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TokenRefreshException refreshFailure) {
+                throw refreshFailure;
+            }
+            throw new TokenRefreshException("Token refresh failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new TokenRefreshException("Token refresh timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TokenRefreshException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Forget the cached token after the provider rejected it (revoked, or replaced on another node);
+     * the next call reads it again from oauth_tokens
+     */
+    public void evict(Long userId, CalendarEvent.Provider provider) {
+        tokens.remove(new TokenKey(userId, provider));
+    }
+
+    /**
+     * Refresh every token expiring within the refresh window, a batch of claimed tokens at a time
+     */
+    @Scheduled(fixedDelayString = "${oauth.refresh.poll-interval-ms:60000}")
+    public void refreshExpiring() {
+        try {
+            List<OAuthTokenState> claimed;
+            do {
+                LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+                claimed = oAuthTokenService.claimExpiring(now.plusSeconds(refreshAheadSeconds), now, batchSize);
+                List<CompletableFuture<CachedToken>> running = new ArrayList<>(claimed.size());
+                for (OAuthTokenState state : claimed) {
+                    TokenKey key = new TokenKey(state.getUserId(), CalendarEvent.Provider.valueOf(state.getProvider().name()));
+                    running.add(refresh(key, state).exceptionally(e -> null));
+                }
+                CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+            } while (claimed.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Error refreshing expiring OAuth tokens", e);
+        }
+    }
+
+    /**
+     * Start a refresh of the account's token, or join the one already running
+     *
+     * @param claimed the token as claimed by the background scan, or null to read it first
+     */
+    private CompletableFuture<CachedToken> refresh(TokenKey key, OAuthTokenState claimed) {
+        CompletableFuture<CachedToken> started = new CompletableFuture<>();
+        CompletableFuture<CachedToken> running = refreshes.putIfAbsent(key, started);
+        if (running != null) {
+            return running;
+        }
+        try {
+            refreshers.execute(() -> {
+                try {
+                    started.complete(claimed != null ? refreshNow(key, claimed, "background") : refreshStale(key));
+                } catch (Throwable e) {
+                    started.completeExceptionally(e);
+                } finally {
+                    refreshes.remove(key, started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshes.remove(key, started);
+            started.completeExceptionally(e);
+        }
+        return started;
+    }
+
+    /**
+     * Refresh a token a caller found close to expiry, unless another node has refreshed it already
+     */
+    private CachedToken refreshStale(TokenKey key) {
+        OAuthTokenState state = oAuthTokenService.findState(key.userId(), key.provider()).orElse(null);
+        if (state == null) {
+            tokens.remove(key);
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        if (state.getRefreshToken() == null || state.getExpiresAt().isAfter(now.plusSeconds(refreshAheadSeconds))) {
+            return cache(key, CachedToken.of(state));
+        }
+        return refreshNow(key, state, "on-demand");
+    }
+
+    private CachedToken refreshNow(TokenKey key, OAuthTokenState state, String trigger) {
+        CalendarProvider provider = providers.get(key.provider());
+        String providerTag = key.provider().name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
+        try {
+            if (provider == null) {
+                throw new TokenRefreshException("No client for " + key.provider(), true);
+            }
+            TokenGrant grant = provider.refreshAccessToken(state.getRefreshToken());
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            // How long after the token entered the refresh window it was actually refreshed
+            Duration lag = Duration.between(state.getExpiresAt().minusSeconds(refreshAheadSeconds), now);
+            meterRegistry.timer("oauth.token.refresh.lag", "provider", providerTag)
+                    .record(lag.isNegative() ? Duration.ZERO : lag);
+            if (oAuthTokenService.markRefreshed(state, grant)) {
+                return cache(key, new CachedToken(grant.accessToken(), grant.expiresAt(), true, LocalDateTime.MIN));
+            }
+            // Another node refreshed it first: use what it stored
+            return oAuthTokenService.findState(key.userId(), key.provider())
+                    .map(stored -> cache(key, CachedToken.of(stored)))
+                    .orElse(null);
+        } catch (TokenRefreshException e) {
+            result = "failure";
+            meterRegistry.counter("oauth.token.refresh.failures", "provider", providerTag,
+                    "reason", e.isPermanent() ? "permanent" : "transient").increment();
+            LocalDateTime retryAt = LocalDateTime.now(ZoneOffset.UTC).plusSeconds(e.isPermanent() ? retryMaxSeconds
+                    : Math.min(retryBaseSeconds << Math.min(state.getRefreshFailures(), 20), retryMaxSeconds));
+            log.warn("OAuth token refresh for user {} at {} failed: {}", key.userId(), providerTag, e.getMessage());
+            try {
+                oAuthTokenService.markRefreshFailed(state.getId(), retryAt);
+            } catch (Exception recordFailure) {
+                log.error("Failed to record OAuth token refresh failure", recordFailure);
+            }
+            tokens.computeIfPresent(key, (k, cached) -> cached.withRetryAt(retryAt));
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("oauth.token.refresh", "provider", providerTag, "trigger", trigger,
+                    "result", result));
+        }
+    }
+
+    private CachedToken cache(TokenKey key, CachedToken token) {
+        tokens.put(key, token);
+        return token;
+    }
+
+    private record TokenKey(Long userId, CalendarEvent.Provider provider) {
+    }
+
+    /**
+     * @param retryAt no refresh is attempted before this time, after a failed one
+     */
+    private record CachedToken(String accessToken, LocalDateTime expiresAt, boolean refreshable,
+                               LocalDateTime retryAt) {
+
+        static CachedToken of(OAuthTokenState state) {
+            return new CachedToken(state.getAccessToken(), state.getExpiresAt(), state.getRefreshToken() != null,
+                    LocalDateTime.MIN);
+        }
+
+        CachedToken withRetryAt(LocalDateTime retryAt) {
+            return new CachedToken(accessToken, expiresAt, refreshable, retryAt);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.appointments.service;
+
+import com.appointments.calendar.TokenGrant;
+import com.appointments.dto.OAuthTokenState;
+import com.appointments.entity.CalendarEvent;
+import com.appointments.entity.OAuthToken;
+import com.appointments.repository.OAuthTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stored OAuth credentials of linked calendar accounts. Callers wanting an access token go through
+ * {@link OAuthTokenManager}, which caches them and keeps them fresh.
+ */
+@Service
+@RequiredArgsConstructor
+public class OAuthTokenService {
+
+    private final OAuthTokenRepository oAuthTokenRepository;
+
+    @Value("${oauth.refresh.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Transactional(readOnly = true)
+    public Optional<OAuthTokenState> findState(Long userId, CalendarEvent.Provider provider) {
+        return oAuthTokenRepository.findState(userId, OAuthToken.Provider.valueOf(provider.name()));
+    }
+
+    /**
+     * Claim up to {@code limit} tokens expiring before {@code before} for a background refresh
+     */
+    @Transactional
+    public List<OAuthTokenState> claimExpiring(LocalDateTime before, LocalDateTime now, int limit) {
+        List<Long> ids = oAuthTokenRepository.lockExpiringIds(before, now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        oAuthTokenRepository.claimRefresh(ids, now.plusSeconds(leaseSeconds));
+        return oAuthTokenRepository.findStates(ids);
+    }
+
+    /**
+     * Store a refresh's result
+     *
+     * @return false if another node refreshed the token first; its credentials are kept
+     */
+    @Transactional
+    public boolean markRefreshed(OAuthTokenState state, TokenGrant grant) {
+        return oAuthTokenRepository.markRefreshed(state.getId(), state.getExpiresAt(), grant.accessToken(),
+                grant.refreshToken(), grant.expiresAt()) > 0;
+    }
+
+    @Transactional
+    public void markRefreshFailed(Long tokenId, LocalDateTime retryAt) {
+        oAuthTokenRepository.markRefreshFailed(tokenId, retryAt);
+    }
+}
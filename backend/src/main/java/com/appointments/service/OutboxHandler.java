@@ -0,0 +1,19 @@
+package com.appointments.service;
+
+import com.appointments.entity.OutboxEvent;
+
+/**
+ * Delivers outbox events of one topic. Events may be delivered more than once, so handling must be
+ * idempotent; throwing schedules a retry.
+ */
+public interface OutboxHandler {
+
+    /**
+     * Topic stored on the handler's outbox rows
+     */
+    String getTopic();
+
+    boolean supports(OutboxEvent.Type type);
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,176 @@
+package com.appointments.service;
+
+import com.appointments.entity.OutboxEvent;
+import com.appointments.repository.OutboxRepository;
+import com.appointments.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Writes outbox events inside booking transactions, and the short transactions the relay uses to
+ * claim and acknowledge them.
+ *
+ * An event is written once per handler that supports its type, so a slow topic (calendar) never
+ * holds up another (reminders). Claiming works like reminder claiming: rows are locked with
+ * {@code FOR UPDATE SKIP LOCKED} and leased to this node, and acknowledgements only apply while
+ * the lease is held.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox (topic, aggregate_id, event_type, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private final OutboxRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<OutboxHandler> handlers;
+
+    private final String nodeId = nodeId();
+    private final List<Consumer<String>> publishListeners = new CopyOnWriteArrayList<>();
+
+    @Value("${outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry.base-seconds:5}")
+    private long retryBaseSeconds;
+
+    @Value("${outbox.retry.max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    @Value("${outbox.retention-hours:72}")
+    private long retentionHours;
+
+    public List<OutboxHandler> getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Called with the topic after a transaction that published to it commits
+     */
+    public void onPublished(Consumer<String> listener) {
+        publishListeners.add(listener);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Long appointmentId, OutboxEvent.Type type) {
+        publishAll(List.of(appointmentId), type);
+    }
+
+    /**
+     * Queue an event per appointment for every handler of the type, as one JDBC batch in the caller's transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(Collection<Long> appointmentIds, OutboxEvent.Type type) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<Object[]> rows = new ArrayList<>();
+        Set<String> topics = new LinkedHashSet<>();
+        for (OutboxHandler handler : handlers) {
+            if (!handler.supports(type)) {
+                continue;
+            }
+            topics.add(handler.getTopic());
+            for (Long appointmentId : appointmentIds) {
+                rows.add(new Object[]{handler.getTopic(), appointmentId, type.name(), now, now});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+        TransactionHooks.afterCommit(() -> topics.forEach(topic ->
+                publishListeners.forEach(listener -> listener.accept(topic))));
+    }
+
+    /**
+     * Claim up to {@code limit} deliverable events of a topic, oldest first
+     */
+    @Transactional
+    public List<OutboxEvent> claim(String topic, LocalDateTime now, int limit) {
+        List<Long> ids = outboxRepository.lockDeliverableIds(topic, now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        outboxRepository.claim(ids, nodeId, now.plusSeconds(leaseSeconds));
+        return outboxRepository.findByIdInOrderById(ids);
+    }
+
+    @Transactional
+    public void markDone(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        int updated = outboxRepository.markDone(eventIds, nodeId, LocalDateTime.now(ZoneOffset.UTC));
+        if (updated < eventIds.size()) {
+            log.warn("{} of {} delivered outbox events had lost their claim", eventIds.size() - updated, eventIds.size());
+        }
+    }
+
+    /**
+     * Retry with exponential backoff, or park the event as FAILED after {@code outbox.max-attempts}.
+     * A FAILED event no longer holds back later events of its appointment.
+     */
+    @Transactional
+    public void markFailed(OutboxEvent event, String error) {
+        int attempts = event.getAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        if (attempts < maxAttempts) {
+            long delaySeconds = Math.min(retryBaseSeconds << Math.min(attempts - 1, 20), retryMaxSeconds);
+            outboxRepository.markFailed(event.getId(), nodeId, OutboxEvent.Status.PENDING,
+                    now.plusSeconds(delaySeconds), error, null);
+            log.info("Retrying outbox event {} ({} {}) in {}s", event.getId(), event.getTopic(),
+                    event.getEventType(), delaySeconds);
+        } else {
+            outboxRepository.markFailed(event.getId(), nodeId, OutboxEvent.Status.FAILED,
+                    event.getNextAttemptAt(), error, now);
+            log.error("Outbox event {} ({} {}) for appointment {} failed after {} attempts: {}", event.getId(),
+                    event.getTopic(), event.getEventType(), event.getAggregateId(), attempts, error);
+        }
+    }
+
+    @Transactional
+    public int releaseExpiredClaims() {
+        int released = outboxRepository.releaseExpiredClaims(LocalDateTime.now(ZoneOffset.UTC));
+        if (released > 0) {
+            log.warn("Released {} outbox events with expired claims", released);
+        }
+        return released;
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 47 * * * *}")
+    @Transactional
+    public void purgeDelivered() {
+        int deleted = outboxRepository.deleteDoneBefore(LocalDateTime.now(ZoneOffset.UTC).minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Purged {} delivered outbox events", deleted);
+        }
+    }
+
+    private static String nodeId() {
+        String id = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+}
@@ -0,0 +1,54 @@
+package com.appointments.service;
+
+import com.appointments.cache.CacheNames;
+import com.appointments.dto.ServiceSnapshot;
+import com.appointments.dto.StaffSnapshot;
+import com.appointments.dto.WorkingHoursSnapshot;
+import com.appointments.exception.ResourceNotFoundException;
+import com.appointments.repository.ServiceRepository;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.repository.StaffWorkingHoursRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cached, read-only views of the reference data every booking touches.
+ * Entries are evicted by {@link com.appointments.entity.listener.ReferenceDataListener} when the entities change.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataService {
+
+    private final ServiceRepository serviceRepository;
+    private final StaffProfileRepository staffProfileRepository;
+    private final StaffWorkingHoursRepository workingHoursRepository;
+
+    @Cacheable(cacheNames = CacheNames.SERVICES, sync = true)
+    public ServiceSnapshot getService(Long serviceId) {
+        return serviceRepository.findById(serviceId)
+                .map(ServiceSnapshot::of)
+                .orElseThrow(() -> new ResourceNotFoundException("Service not found"));
+    }
+
+    @Cacheable(cacheNames = CacheNames.STAFF, sync = true)
+    public StaffSnapshot getStaff(Long staffId) {
+        return staffProfileRepository.findById(staffId)
+                .map(StaffSnapshot::of)
+                .orElseThrow(() -> new ResourceNotFoundException("Staff not found"));
+    }
+
+    /**
+     * Active working hours for every day of the week
+     */
+    @Cacheable(cacheNames = CacheNames.WORKING_HOURS, sync = true)
+    public List<WorkingHoursSnapshot> getWorkingHours(Long staffId) {
+        List<WorkingHoursSnapshot> hours = new ArrayList<>();
+        workingHoursRepository.findByStaffIdAndIsActiveTrue(staffId)
+                .forEach(row -> hours.add(WorkingHoursSnapshot.of(row)));
+        return hours;
+    }
+}
@@ -0,0 +1,101 @@
+package com.appointments.service;
+
+import com.appointments.dto.ReminderDispatchView;
+import com.appointments.entity.Reminder;
+import com.appointments.repository.ReminderRepository;
+import com.appointments.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short transactions around reminder dispatch: claim a batch, then record each outcome.
+ *
+ * A claim locks due rows with {@code FOR UPDATE SKIP LOCKED}, so concurrent nodes take disjoint
+ * batches, and marks them PROCESSING under a lease owned by this node. Outcomes are only
+ * recorded while this node still holds the lease. The lease must comfortably exceed the time a
+ * batch takes to send; a reminder is only handed out again once its lease has expired.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReminderClaimService {
+
+    private static final int MAX_RETRIES = 3;
+
+    private final ReminderRepository reminderRepository;
+    private final ReminderTimer reminderTimer;
+
+    private final String nodeId = nodeId();
+
+    @Value("${reminders.dispatch.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Claim up to {@code limit} reminders due at {@code now}, returned with what is needed to send them
+     */
+    @Transactional
+    public List<ReminderDispatchView> claimDue(LocalDateTime now, int limit) {
+        List<Long> ids = reminderRepository.lockDueReminderIds(now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        reminderRepository.claim(ids, nodeId, now.plusSeconds(leaseSeconds));
+        return reminderRepository.findDispatchViews(ids);
+    }
+
+    @Transactional
+    public void markSent(List<Long> reminderIds) {
+        if (reminderIds.isEmpty()) {
+            return;
+        }
+        int updated = reminderRepository.markSent(reminderIds, nodeId, LocalDateTime.now(ZoneOffset.UTC));
+        if (updated < reminderIds.size()) {
+            log.warn("{} of {} sent reminders had lost their claim", reminderIds.size() - updated, reminderIds.size());
+        }
+    }
+
+    /**
+     * Reschedule with exponential backoff, or fail permanently after {@value #MAX_RETRIES} attempts
+     */
+    @Transactional
+    public void markFailed(ReminderDispatchView reminder, String errorMessage) {
+        int attempts = reminder.getRetryCount() + 1;
+        if (attempts < MAX_RETRIES) {
+            long backoffMinutes = (long) Math.pow(2, attempts) * 5;
+            LocalDateTime retryAt = LocalDateTime.now(ZoneOffset.UTC).plusMinutes(backoffMinutes);
+            reminderRepository.markFailed(reminder.getId(), nodeId, Reminder.Status.PENDING, retryAt, errorMessage);
+            TransactionHooks.afterCommit(() -> reminderTimer.schedule(reminder.getId(), retryAt));
+            log.info("Rescheduling reminder {} in {} minutes", reminder.getId(), backoffMinutes);
+        } else {
+            reminderRepository.markFailed(reminder.getId(), nodeId, Reminder.Status.FAILED,
+                    reminder.getScheduledTime(), errorMessage);
+        }
+    }
+
+    @Transactional
+    public int releaseExpiredClaims() {
+        int released = reminderRepository.releaseExpiredClaims(LocalDateTime.now(ZoneOffset.UTC));
+        if (released > 0) {
+            log.warn("Released {} reminders whose dispatch lease expired", released);
+        }
+        return released;
+    }
+
+    private static String nodeId() {
+        String id = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+}
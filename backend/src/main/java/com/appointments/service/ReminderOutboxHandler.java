@@ -0,0 +1,43 @@
+package com.appointments.service;
+
+import com.appointments.entity.Appointment;
+import com.appointments.entity.OutboxEvent;
+import com.appointments.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reminder bookkeeping for booking changes. Every event re-derives the reminders from the
+ * appointment's current state, so redelivery does not duplicate them.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReminderOutboxHandler implements OutboxHandler {
+
+    public static final String TOPIC = "reminders";
+
+    private final AppointmentRepository appointmentRepository;
+    private final ReminderService reminderService;
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.Type type) {
+        return type != OutboxEvent.Type.APPOINTMENT_UPDATED;
+    }
+
+    @Override
+    @Transactional
+    public void handle(OutboxEvent event) {
+        Appointment appointment = appointmentRepository.findById(event.getAggregateId()).orElse(null);
+        if (appointment == null || appointment.getStatus() == Appointment.Status.CANCELLED) {
+            reminderService.cancelRemindersForAppointment(event.getAggregateId());
+        } else {
+            reminderService.updateRemindersForAppointment(appointment);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.appointments.service;
+
+import com.appointments.dto.ReminderCandidate;
+import com.appointments.dto.ReminderPolicyView;
+import com.appointments.entity.Reminder;
+import com.appointments.entity.ReminderPolicy;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.repository.ReminderPolicyRepository;
+import com.appointments.repository.ReminderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Policy mode for reminders ({@code reminders.mode=policy}).
+ *
+ * Instead of writing reminder rows at booking time, due reminders are derived from
+ * {@code appointments.start_time}: for each active policy, a range scan finds the appointments whose
+ * reminder has come due and has no attempt yet, and a PENDING row is written for each. Those rows
+ * then go through the usual claim and send pipeline, so only attempts are ever persisted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReminderPolicyService {
+
+    public static final String MODE_POLICY = "policy";
+
+    private final ReminderPolicyRepository policyRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ReminderRepository reminderRepository;
+
+    @Value("${reminders.mode:rows}")
+    private String mode;
+
+    @Value("${reminders.policy.lookback-minutes:360}")
+    private long lookbackMinutes;
+
+    private volatile List<ReminderPolicyView> policies;
+
+    public boolean isEnabled() {
+        return MODE_POLICY.equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Active policies as of the last refresh
+     */
+    public List<ReminderPolicyView> getPolicies() {
+        List<ReminderPolicyView> current = policies;
+        if (current == null) {
+            current = refresh();
+        }
+        return current;
+    }
+
+    /**
+     * The service's own policies, or the defaults if it has none
+     */
+    public List<ReminderPolicyView> policiesFor(Long serviceId) {
+        List<ReminderPolicyView> own = new ArrayList<>();
+        List<ReminderPolicyView> defaults = new ArrayList<>();
+        for (ReminderPolicyView policy : getPolicies()) {
+            if (policy.getServiceId() == null) {
+                defaults.add(policy);
+            } else if (policy.getServiceId().equals(serviceId)) {
+                own.add(policy);
+            }
+        }
+        return own.isEmpty() ? defaults : own;
+    }
+
+    @Scheduled(fixedDelayString = "${reminders.policy.refresh-ms:60000}")
+    public List<ReminderPolicyView> refresh() {
+        List<ReminderPolicyView> loaded = isEnabled() ? policyRepository.findActiveViews() : List.of();
+        policies = loaded;
+        return loaded;
+    }
+
+    /**
+     * Write PENDING attempts for every policy reminder due at {@code now}. Reminders up to
+     * {@code reminders.policy.lookback-minutes} overdue are still sent, but never for appointments
+     * that have already started. The policy rows stay locked until commit, so concurrent nodes
+     * run one after another and see each other's attempts.
+     *
+     * @return the number of reminders written
+     */
+    @Transactional
+    public int materializeDue(LocalDateTime now) {
+        List<ReminderPolicy> active = policyRepository.lockActive();
+        Set<Long> servicesWithPolicies = new HashSet<>();
+        active.forEach(policy -> {
+            if (policy.getService() != null) {
+                servicesWithPolicies.add(policy.getService().getId());
+            }
+        });
+
+        List<Reminder> reminders = new ArrayList<>();
+        for (ReminderPolicy policy : active) {
+            LocalDateTime to = now.plusMinutes(policy.getOffsetMinutes());
+            LocalDateTime from = to.minusMinutes(lookbackMinutes);
+            if (from.isBefore(now)) {
+                from = now;
+            }
+            for (ReminderCandidate candidate : findCandidates(policy, from, to, servicesWithPolicies)) {
+                String recipient = policy.getType() == Reminder.Type.SMS ? candidate.getPhone() : candidate.getEmail();
+                if (recipient == null || recipient.isBlank()) {
+                    continue;
+                }
+                reminders.add(Reminder.builder()
+                        .appointment(appointmentRepository.getReferenceById(candidate.getAppointmentId()))
+                        .type(policy.getType())
+                        .offsetMinutes(policy.getOffsetMinutes())
+                        .appointmentStart(candidate.getStartTime())
+                        .recipient(recipient)
+                        .scheduledTime(candidate.getStartTime().minusMinutes(policy.getOffsetMinutes()))
+                        .status(Reminder.Status.PENDING)
+                        .retryCount(0)
+                        .build());
+            }
+        }
+
+        reminderRepository.saveAll(reminders);
+        if (!reminders.isEmpty()) {
+            log.info("Materialized {} policy reminders", reminders.size());
+        }
+        return reminders.size();
+    }
+
+    private List<ReminderCandidate> findCandidates(ReminderPolicy policy, LocalDateTime from, LocalDateTime to,
+                                                   Set<Long> servicesWithPolicies) {
+        if (policy.getService() != null) {
+            return appointmentRepository.findReminderCandidatesForService(from, to, policy.getType(),
+                    policy.getOffsetMinutes(), policy.getService().getId());
+        }
+        if (servicesWithPolicies.isEmpty()) {
+            return appointmentRepository.findReminderCandidates(from, to, policy.getType(), policy.getOffsetMinutes());
+        }
+        return appointmentRepository.findReminderCandidatesExcludingServices(from, to, policy.getType(),
+                policy.getOffsetMinutes(), servicesWithPolicies);
+    }
+}
@@ -1,16 +1,25 @@
 package com.appointments.service;
 
+import com.appointments.dto.ReminderDispatchView;
 import com.appointments.entity.Appointment;
 import com.appointments.entity.Reminder;
 import com.appointments.repository.ReminderRepository;
+import com.appointments.service.NotificationService.EmailRecipient;
+import com.appointments.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -18,39 +27,67 @@ import java.util.List;
 public class ReminderService {
 
     private final ReminderRepository reminderRepository;
-    private final NotificationService notificationService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final ReminderClaimService reminderClaimService;
+    private final ReminderTimer reminderTimer;
+    private final ReminderTemplates reminderTemplates;
+    private final ReminderPolicyService policyService;
+
+    @Value("${reminders.dispatch.batch-size:200}")
+    private int batchSize;
 
     private static final int REMINDER_OFFSET_MINUTES = 15;
 
     @Transactional
     public void createRemindersForAppointment(Appointment appointment) {
+        if (policyService.isEnabled()) {
+            scheduleDerived(appointment);
+            return;
+        }
+        List<Reminder> reminders = buildReminders(appointment, appointment.getUser().getEmail(),
+                appointment.getUser().getPhone());
+        reminderRepository.saveAll(reminders);
+        TransactionHooks.afterCommit(() -> reminderTimer.scheduleAll(reminders));
+        log.info("Created {} reminders for appointment {}", reminders.size(), appointment.getId());
+    }
+
+    private List<Reminder> buildReminders(Appointment appointment, String email, String phone) {
         List<Reminder> reminders = new ArrayList<>();
 
         // 24 hours before
         reminders.add(createReminder(
                 appointment,
                 appointment.getStartTime().minusHours(24),
-                Reminder.Type.EMAIL
+                Reminder.Type.EMAIL,
+                email,
+                24 * 60
         ));
 
         // 1 hour before
         reminders.add(createReminder(
                 appointment,
                 appointment.getStartTime().minusHours(1),
-                Reminder.Type.EMAIL
+                Reminder.Type.EMAIL,
+                email,
+                60
         ));
 
         // 15 minutes before (SMS)
         reminders.add(createReminder(
                 appointment,
                 appointment.getStartTime().minusMinutes(REMINDER_OFFSET_MINUTES),
-                Reminder.Type.SMS
+                Reminder.Type.SMS,
+                phone,
+                REMINDER_OFFSET_MINUTES
         ));
 
-        reminderRepository.saveAll(reminders);
-        log.info("Created {} reminders for appointment {}", reminders.size(), appointment.getId());
+        return reminders;
     }
 
+    /**
+     * In policy mode this only moves timer entries: attempts are tied to the start time they were
+     * derived from, so the new time gets fresh reminders without touching any rows
+     */
     @Transactional
     public void updateRemindersForAppointment(Appointment appointment) {
         // Cancel old reminders
@@ -60,104 +97,123 @@ public class ReminderService {
         createRemindersForAppointment(appointment);
     }
 
+    /**
+     * Cancel pending reminders with a single bulk update; in policy mode there are usually none
+     */
     @Transactional
     public void cancelRemindersForAppointment(Long appointmentId) {
-        List<Reminder> reminders = reminderRepository.findByAppointmentId(appointmentId);
-        reminders.forEach(reminder -> {
-            if (reminder.getStatus() == Reminder.Status.PENDING) {
-                reminder.setStatus(Reminder.Status.CANCELLED);
+        List<Long> pending = reminderRepository.findPendingIdsByAppointmentId(appointmentId);
+        if (!pending.isEmpty()) {
+            reminderRepository.cancelPending(pending);
+        }
+        boolean derived = policyService.isEnabled();
+        TransactionHooks.afterCommit(() -> {
+            reminderTimer.cancel(pending);
+            if (derived) {
+                reminderTimer.cancelDerived(appointmentId);
             }
         });
-        reminderRepository.saveAll(reminders);
-        log.info("Cancelled {} reminders for appointment {}", reminders.size(), appointmentId);
+        log.info("Cancelled {} reminders for appointment {}", pending.size(), appointmentId);
     }
 
-    @Transactional
-    public void processDueReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Reminder> dueReminders = reminderRepository.findDueReminders(now);
-
-        log.info("Processing {} due reminders", dueReminders.size());
+    private void scheduleDerived(Appointment appointment) {
+        Long appointmentId = appointment.getId();
+        Long serviceId = appointment.getService().getId();
+        LocalDateTime startTime = appointment.getStartTime();
+        TransactionHooks.afterCommit(() -> reminderTimer.scheduleDerived(appointmentId, serviceId, startTime));
+    }
 
-        for (Reminder reminder : dueReminders) {
+    /**
+     * Claim and send due reminders in batches until none are left. Safe to run on every node at once:
+     * each batch is claimed in its own short transaction, sent concurrently with no transaction open,
+     * and its results recorded in another.
+     */
+    public void processDueReminders() {
+        reminderClaimService.releaseExpiredClaims();
+        if (policyService.isEnabled()) {
             try {
-                sendReminder(reminder);
-            } catch (Exception e) {
-                log.error("Failed to send reminder {}", reminder.getId(), e);
-                handleReminderFailure(reminder, e.getMessage());
+                policyService.materializeDue(LocalDateTime.now(ZoneOffset.UTC));
+            } catch (RuntimeException e) {
+                // Keep sending what is already due; the next run retries
+                log.error("Failed to materialize policy reminders", e);
             }
         }
-    }
-
-    private void sendReminder(Reminder reminder) {
-        Appointment appointment = reminder.getAppointment();
-
-        String subject = "Appointment Reminder";
-        String message = String.format(
-                "Reminder: You have an appointment on %s with %s %s",
-                appointment.getStartTime(),
-                appointment.getStaff().getUser().getFirstName(),
-                appointment.getStaff().getUser().getLastName()
-        );
-
-        boolean sent = false;
-
-        switch (reminder.getType()) {
-            case EMAIL:
-                sent = notificationService.sendEmail(
-                        reminder.getRecipient(),
-                        subject,
-                        message
-                );
-                break;
-            case SMS:
-                sent = notificationService.sendSMS(
-                        reminder.getRecipient(),
-                        message
-                );
-                break;
-            case PUSH:
-                // Push notifications not yet implemented
-                log.warn("Push notifications not yet implemented for reminder {}", reminder.getId());
-                sent = false;
-                break;
-        }
 
-        if (sent) {
-            reminder.setStatus(Reminder.Status.SENT);
-            reminder.setSentAt(LocalDateTime.now());
-            log.info("Reminder {} sent successfully", reminder.getId());
-        } else {
-            throw new RuntimeException("Failed to send reminder");
+        int total = 0;
+        List<ReminderDispatchView> batch;
+        do {
+            batch = reminderClaimService.claimDue(LocalDateTime.now(ZoneOffset.UTC), batchSize);
+            Map<ReminderDispatchView, CompletableFuture<Boolean>> sends = dispatch(batch);
+
+            List<Long> sent = new ArrayList<>(batch.size());
+            sends.forEach((reminder, result) -> {
+                boolean ok;
+                try {
+                    ok = result.join();
+                } catch (CompletionException e) {
+                    log.error("Failed to send reminder {}", reminder.getId(), e.getCause());
+                    ok = false;
+                }
+                if (ok) {
+                    sent.add(reminder.getId());
+                } else {
+                    reminderClaimService.markFailed(reminder, "Failed to send reminder");
+                }
+            });
+            reminderClaimService.markSent(sent);
+            total += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (total > 0) {
+            log.info("Processed {} due reminders", total);
         }
-
-        reminderRepository.save(reminder);
     }
 
-    private void handleReminderFailure(Reminder reminder, String errorMessage) {
-        reminder.setStatus(Reminder.Status.FAILED);
-        reminder.setRetryCount(reminder.getRetryCount() + 1);
-        reminder.setErrorMessage(errorMessage);
-
-        // Reschedule with exponential backoff (max 3 retries)
-        if (reminder.getRetryCount() < 3) {
-            long backoffMinutes = (long) Math.pow(2, reminder.getRetryCount()) * 5;
-            reminder.setScheduledTime(LocalDateTime.now().plusMinutes(backoffMinutes));
-            reminder.setStatus(Reminder.Status.PENDING);
-            log.info("Rescheduling reminder {} in {} minutes", reminder.getId(), backoffMinutes);
+    /**
+     * Start sending a batch: emails go out as multi-recipient SendGrid requests, SMS one by one
+     */
+    private Map<ReminderDispatchView, CompletableFuture<Boolean>> dispatch(List<ReminderDispatchView> batch) {
+        Map<ReminderDispatchView, CompletableFuture<Boolean>> sends = new LinkedHashMap<>();
+        List<ReminderDispatchView> emails = new ArrayList<>();
+        List<EmailRecipient> recipients = new ArrayList<>();
+        ReminderTemplates.Compiled emailTemplate = reminderTemplates.forType(Reminder.Type.EMAIL);
+        ReminderTemplates.Compiled smsTemplate = reminderTemplates.forType(Reminder.Type.SMS);
+
+        for (ReminderDispatchView reminder : batch) {
+            switch (reminder.getType()) {
+                case EMAIL:
+                    emails.add(reminder);
+                    recipients.add(new EmailRecipient(reminder.getRecipient(), emailTemplate.values(reminder)));
+                    break;
+                case SMS:
+                    sends.put(reminder, notificationDispatcher.sendSms(reminder.getRecipient(),
+                            smsTemplate.getBody().render(smsTemplate.values(reminder))));
+                    break;
+                default:
+                    // Push notifications not yet implemented
+                    log.warn("Push notifications not yet implemented for reminder {}", reminder.getId());
+                    sends.put(reminder, CompletableFuture.completedFuture(false));
+                    break;
+            }
         }
 
-        reminderRepository.save(reminder);
+        if (!emails.isEmpty()) {
+            List<CompletableFuture<Boolean>> results = notificationDispatcher.sendEmails(
+                    emailTemplate.getSubject(), emailTemplate.getBody(), recipients);
+            for (int i = 0; i < emails.size(); i++) {
+                sends.put(emails.get(i), results.get(i));
+            }
+        }
+        return sends;
     }
 
-    private Reminder createReminder(Appointment appointment, LocalDateTime scheduledTime, Reminder.Type type) {
-        String recipient = type == Reminder.Type.EMAIL
-                ? appointment.getUser().getEmail()
-                : appointment.getUser().getPhone();
-
+    private Reminder createReminder(Appointment appointment, LocalDateTime scheduledTime, Reminder.Type type,
+                                    String recipient, int offsetMinutes) {
         return Reminder.builder()
                 .appointment(appointment)
                 .type(type)
+                .offsetMinutes(offsetMinutes)
+                .appointmentStart(appointment.getStartTime())
                 .recipient(recipient)
                 .scheduledTime(scheduledTime)
                 .status(Reminder.Status.PENDING)
@@ -0,0 +1,102 @@
+package com.appointments.service;
+
+import com.appointments.dto.ReminderDispatchView;
+import com.appointments.entity.Reminder;
+import com.appointments.util.MessageTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reminder texts, compiled once per channel and locale. Appointment times are rendered in the
+ * time zone of the user who booked, falling back to UTC for an unknown zone.
+ */
+@Component
+@Slf4j
+public class ReminderTemplates {
+
+    public static final String START_TIME = "%start_time%";
+    public static final String STAFF_NAME = "%staff_name%";
+
+    private static final String SUBJECT = "Appointment Reminder";
+    private static final String EMAIL_BODY = "Reminder: You have an appointment on " + START_TIME + " with " + STAFF_NAME;
+    private static final String SMS_BODY = "Reminder: appointment on " + START_TIME + " with " + STAFF_NAME;
+
+    @Value("${reminders.locale:en}")
+    private String defaultLocale;
+
+    private final Map<String, Compiled> compiled = new ConcurrentHashMap<>();
+    private final Map<String, ZoneId> zones = new ConcurrentHashMap<>();
+
+    /**
+     * Templates for a channel in the default locale; users have no locale of their own yet
+     */
+    public Compiled forType(Reminder.Type type) {
+        return compiled.computeIfAbsent(type + "|" + defaultLocale,
+                key -> compile(type, Locale.forLanguageTag(defaultLocale)));
+    }
+
+    private Compiled compile(Reminder.Type type, Locale locale) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM, FormatStyle.SHORT)
+                .withLocale(locale);
+        String body = type == Reminder.Type.SMS ? SMS_BODY : EMAIL_BODY;
+        return new Compiled(MessageTemplate.compile(SUBJECT), MessageTemplate.compile(body), formatter);
+    }
+
+    private ZoneId zone(String timezone) {
+        if (timezone == null) {
+            return ZoneOffset.UTC;
+        }
+        return zones.computeIfAbsent(timezone, id -> {
+            try {
+                return ZoneId.of(id);
+            } catch (DateTimeException e) {
+                log.warn("Unknown time zone '{}', rendering reminders in UTC", id);
+                return ZoneOffset.UTC;
+            }
+        });
+    }
+
+    public final class Compiled {
+        private final MessageTemplate subject;
+        private final MessageTemplate body;
+        private final DateTimeFormatter formatter;
+
+        private Compiled(MessageTemplate subject, MessageTemplate body, DateTimeFormatter formatter) {
+            this.subject = subject;
+            this.body = body;
+            this.formatter = formatter;
+        }
+
+        public MessageTemplate getSubject() {
+            return subject;
+        }
+
+        public MessageTemplate getBody() {
+            return body;
+        }
+
+        /**
+         * Placeholder values for one reminder
+         */
+        public Map<String, String> values(ReminderDispatchView reminder) {
+            String startTime = reminder.getStartTime()
+                    .atOffset(ZoneOffset.UTC)
+                    .atZoneSameInstant(zone(reminder.getTimezone()))
+                    .format(formatter);
+            return Map.of(
+                    START_TIME, startTime,
+                    STAFF_NAME, reminder.getStaffFirstName() + " " + reminder.getStaffLastName()
+            );
+        }
+    }
+}
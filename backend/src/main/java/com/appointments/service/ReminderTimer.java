@@ -0,0 +1,208 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentStart;
+import com.appointments.dto.ReminderPolicyView;
+import com.appointments.dto.ReminderScheduleEntry;
+import com.appointments.entity.Reminder;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.repository.ReminderRepository;
+import com.appointments.util.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fires reminders within a tick of their scheduled time instead of waiting for a polling run.
+ *
+ * Holds the next {@code reminders.timer.horizon-minutes} of pending reminders in a
+ * {@link TimingWheel}. The window is reloaded from the database periodically, and reminders
+ * created, rescheduled or cancelled on this node are applied as their transaction commits.
+ * When entries expire the due listeners are told, and they claim and send through the database
+ * as before. The database stays the source of truth, so a lost or stale timer entry only
+ * delays a reminder until the next sweep.
+ *
+ * In policy mode the wheel also holds the due times derived from upcoming appointments, keyed by
+ * appointment, type and offset, since those reminders have no row until they are due.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReminderTimer {
+
+    private final ReminderRepository reminderRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ReminderPolicyService policyService;
+
+    @Value("${reminders.timer.tick-ms:100}")
+    private long tickMillis;
+
+    @Value("${reminders.timer.horizon-minutes:180}")
+    private long horizonMinutes;
+
+    private final List<Runnable> dueListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Holds reminder ids and, in policy mode, {@link DerivedKey}s
+     */
+    private TimingWheel<Object> wheel;
+    private Thread ticker;
+    private volatile LocalDateTime loadedUntil;
+
+    /**
+     * Due times of policy reminders, which have no row id before they are due
+     */
+    private record DerivedKey(Long appointmentId, Reminder.Type type, int offsetMinutes) {
+    }
+
+    public void onDue(Runnable listener) {
+        dueListeners.add(listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        ticker = new Thread(this::tickLoop, "reminder-timer");
+        ticker.setDaemon(true);
+        ticker.start();
+        loadWindow();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.interrupt();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Track a pending reminder if it falls inside the loaded window; later ones are picked up by a reload
+     */
+    public void schedule(Long reminderId, LocalDateTime scheduledTime) {
+        LocalDateTime until = loadedUntil;
+        if (until == null || scheduledTime.isAfter(until)) {
+            return;
+        }
+        synchronized (this) {
+            wheel.schedule(reminderId, toMillis(scheduledTime));
+        }
+    }
+
+    public void scheduleAll(Collection<Reminder> reminders) {
+        reminders.forEach(reminder -> schedule(reminder.getId(), reminder.getScheduledTime()));
+    }
+
+    public void cancel(Collection<Long> reminderIds) {
+        if (loadedUntil == null) {
+            return;
+        }
+        synchronized (this) {
+            reminderIds.forEach(wheel::cancel);
+        }
+    }
+
+    /**
+     * Track the policy reminders of an appointment that fall inside the loaded window
+     */
+    public void scheduleDerived(Long appointmentId, Long serviceId, LocalDateTime startTime) {
+        LocalDateTime until = loadedUntil;
+        if (until == null) {
+            return;
+        }
+        List<ReminderPolicyView> policies = policyService.policiesFor(serviceId);
+        synchronized (this) {
+            scheduleDerived(appointmentId, startTime, policies, LocalDateTime.now(ZoneOffset.UTC), until);
+        }
+    }
+
+    public void cancelDerived(Long appointmentId) {
+        if (loadedUntil == null) {
+            return;
+        }
+        List<ReminderPolicyView> policies = policyService.getPolicies();
+        synchronized (this) {
+            policies.forEach(policy ->
+                    wheel.cancel(new DerivedKey(appointmentId, policy.getType(), policy.getOffsetMinutes())));
+        }
+    }
+
+    private void scheduleDerived(Long appointmentId, LocalDateTime startTime, List<ReminderPolicyView> policies,
+                                 LocalDateTime from, LocalDateTime until) {
+        for (ReminderPolicyView policy : policies) {
+            LocalDateTime due = startTime.minusMinutes(policy.getOffsetMinutes());
+            if (due.isAfter(from) && !due.isAfter(until)) {
+                wheel.schedule(new DerivedKey(appointmentId, policy.getType(), policy.getOffsetMinutes()), toMillis(due));
+            }
+        }
+    }
+
+    /**
+     * Load pending reminders up to the horizon. Runs at a fraction of the horizon so the window never runs dry.
+     */
+    @Scheduled(fixedDelayString = "${reminders.timer.reload-ms:600000}", initialDelayString = "${reminders.timer.reload-ms:600000}")
+    public void loadWindow() {
+        if (wheel == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime until = now.plusMinutes(horizonMinutes);
+        List<ReminderScheduleEntry> pending = reminderRepository.findPendingScheduledBefore(until);
+        List<AppointmentStart> upcoming = List.of();
+        if (policyService.isEnabled()) {
+            int maxOffset = policyService.getPolicies().stream()
+                    .mapToInt(ReminderPolicyView::getOffsetMinutes).max().orElse(0);
+            upcoming = appointmentRepository.findActiveStartsBetween(now, until.plusMinutes(maxOffset));
+        }
+        synchronized (this) {
+            pending.forEach(entry -> wheel.schedule(entry.getId(), toMillis(entry.getScheduledTime())));
+            for (AppointmentStart appointment : upcoming) {
+                scheduleDerived(appointment.getId(), appointment.getStartTime(),
+                        policyService.policiesFor(appointment.getServiceId()), now, until);
+            }
+            loadedUntil = until;
+        }
+        log.debug("Reminder timer holds {} reminders and {} appointments due before {}",
+                pending.size(), upcoming.size(), until);
+    }
+
+    private void tickLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Object> due;
+            synchronized (this) {
+                due = wheel.advance(System.currentTimeMillis());
+            }
+            if (!due.isEmpty()) {
+                for (Runnable listener : dueListeners) {
+                    try {
+                        listener.run();
+                    } catch (RuntimeException e) {
+                        log.error("Reminder due listener failed", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
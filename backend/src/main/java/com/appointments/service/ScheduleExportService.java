@@ -0,0 +1,184 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentResponse;
+import com.appointments.entity.Appointment;
+import com.appointments.exception.ResourceNotFoundException;
+import com.appointments.repository.StaffProfileRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Streams a staff member's appointments for payroll and BI exports.
+ *
+ * Rows are read from a forward-only cursor on a {@link StatelessSession}, so nothing is kept in a
+ * persistence context, and each row is written and dropped before the next one is fetched.
+ * Heap use is therefore independent of the number of rows exported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleExportService {
+
+    private static final String EXPORT_QUERY =
+            "SELECT a.id, a.user.id, a.staff.id, a.service.id, a.series.id, a.startTime, a.endTime, " +
+            "a.status, a.notes, a.cancellationReason, a.createdAt " +
+            "FROM Appointment a WHERE a.staff.id = :staffId " +
+            "AND a.startTime >= :from AND a.startTime < :to " +
+            "ORDER BY a.startTime ASC, a.id ASC";
+
+    private static final String CSV_HEADER =
+            "id,userId,staffId,serviceId,seriesId,startTime,endTime,status,notes,cancellationReason,createdAt";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final StaffProfileRepository staffProfileRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.flush-rows:500}")
+    private int flushRows;
+
+    @Value("${export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    /**
+     * Validate the request up front, so errors are reported before the response is committed
+     */
+    public StreamingResponseBody export(Long staffId, LocalDateTime from, LocalDateTime to, Format format) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (!staffProfileRepository.existsById(staffId)) {
+            throw new ResourceNotFoundException("Staff not found");
+        }
+        return out -> write(staffId, from, to, format, out);
+    }
+
+    private void write(Long staffId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out)
+            throws IOException {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults<Object[]> results = session.createQuery(EXPORT_QUERY, Object[].class)
+                     .setParameter("staffId", staffId)
+                     .setParameter("from", from)
+                     .setParameter("to", to)
+                     .setReadOnly(true)
+                     // MySQL Connector/J only streams rows with this sentinel fetch size
+                     .setFetchSize(fetchSize)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+
+            SequenceWriter json = null;
+            if (format == Format.NDJSON) {
+                json = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+            } else {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            while (results.next()) {
+                AppointmentResponse row = toResponse(results.get());
+                if (json != null) {
+                    json.write(row);
+                } else {
+                    writeCsv(writer, row);
+                }
+                if (++rows % flushRows == 0) {
+                    if (json != null) {
+                        json.flush();
+                    }
+                    writer.flush();
+                }
+            }
+
+            if (json != null) {
+                // Terminate the last record; the sequence writer is not closed, as that would close the response
+                json.flush();
+                if (rows > 0) {
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+        }
+        log.info("Exported {} appointments for staff {} as {}", rows, staffId, format);
+    }
+
+    private static AppointmentResponse toResponse(Object[] row) {
+        return AppointmentResponse.builder()
+                .id((Long) row[0])
+                .userId((Long) row[1])
+                .staffId((Long) row[2])
+                .serviceId((Long) row[3])
+                .seriesId((Long) row[4])
+                .startTime((LocalDateTime) row[5])
+                .endTime((LocalDateTime) row[6])
+                .status(((Appointment.Status) row[7]).name())
+                .notes((String) row[8])
+                .cancellationReason((String) row[9])
+                .createdAt((LocalDateTime) row[10])
+                .build();
+    }
+
+    private static void writeCsv(Writer writer, AppointmentResponse row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getUserId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getStaffId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getServiceId()));
+        writer.write(',');
+        writer.write(row.getSeriesId() != null ? String.valueOf(row.getSeriesId()) : "");
+        writer.write(',');
+        writer.write(String.valueOf(row.getStartTime()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getEndTime()));
+        writer.write(',');
+        writer.write(row.getStatus());
+        writer.write(',');
+        writeCsvField(writer, row.getNotes());
+        writer.write(',');
+        writeCsvField(writer, row.getCancellationReason());
+        writer.write(',');
+        writer.write(row.getCreatedAt() != null ? String.valueOf(row.getCreatedAt()) : "");
+        writer.write('\n');
+    }
+
+    /**
+     * RFC 4180 quoting for free-text columns
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,140 @@
+package com.appointments.service;
+
+import com.appointments.entity.Appointment;
+import com.appointments.exception.AppointmentConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Optimistic booking mode ({@code booking.mode=slot-claim}).
+ *
+ * Instead of range-locking overlapping appointments, a booking inserts one row per 5-minute slot
+ * into {@code appointment_slots}. The (staff_id, slot_start) primary key rejects double bookings,
+ * so each insert only holds a short single-row lock. Slots are always released on cancel and
+ * reschedule, in either mode, so the table stays consistent when the mode is switched.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlotClaimService {
+
+    public static final int SLOT_MINUTES = 5;
+
+    private static final String MODE_SLOT_CLAIM = "slot-claim";
+
+    private static final String INSERT_SLOT =
+            "INSERT INTO appointment_slots (staff_id, slot_start, appointment_id) VALUES (?, ?, ?)";
+
+    // Same statement as V2__appointment_slots.sql; INSERT IGNORE keeps it idempotent
+    private static final String BACKFILL_SLOTS =
+            "INSERT IGNORE INTO appointment_slots (staff_id, slot_start, appointment_id) " +
+            "WITH RECURSIVE slot_offsets (n) AS (" +
+            "  SELECT 0 UNION ALL SELECT n + 1 FROM slot_offsets WHERE n < 287" +
+            "), aligned AS (" +
+            "  SELECT id, staff_id, end_time, " +
+            "         start_time - INTERVAL (MINUTE(start_time) % 5) MINUTE - INTERVAL SECOND(start_time) SECOND AS first_slot " +
+            "  FROM appointments WHERE status <> 'CANCELLED' AND end_time > UTC_TIMESTAMP()" +
+            ") " +
+            "SELECT a.staff_id, a.first_slot + INTERVAL (o.n * 5) MINUTE, a.id " +
+            "FROM aligned a JOIN slot_offsets o ON a.first_slot + INTERVAL (o.n * 5) MINUTE < a.end_time";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.mode:locking}")
+    private String bookingMode;
+
+    public boolean isEnabled() {
+        return MODE_SLOT_CLAIM.equalsIgnoreCase(bookingMode);
+    }
+
+    /**
+     * Claim every slot covered by the appointment in the current transaction.
+     * The appointment must already be flushed, since slot rows reference it.
+     *
+     * @throws AppointmentConflictException if any slot is already held by another appointment
+     */
+    @Transactional
+    public void claim(Long staffId, Long appointmentId, LocalDateTime startTime, LocalDateTime endTime) {
+        List<Object[]> rows = new ArrayList<>();
+        addSlotRows(rows, staffId, appointmentId, startTime, endTime);
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SLOT, rows);
+        } catch (DuplicateKeyException e) {
+            log.warn("Slot claim conflict for staff {} at time {}", staffId, startTime);
+            throw new AppointmentConflictException("This time slot is no longer available");
+        }
+    }
+
+    /**
+     * Claim the slots of several appointments with a single batched statement.
+     * The appointments must already be flushed, since slot rows reference them.
+     *
+     * @throws AppointmentConflictException if any slot is already held; the failing row is not identified
+     */
+    @Transactional
+    public void claimAll(Collection<Appointment> appointments) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            addSlotRows(rows, appointment.getStaff().getId(), appointment.getId(),
+                    appointment.getStartTime(), appointment.getEndTime());
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SLOT, rows);
+        } catch (DuplicateKeyException e) {
+            log.warn("Slot claim conflict in batch of {} appointments", appointments.size());
+            throw new AppointmentConflictException("One or more time slots are no longer available");
+        }
+    }
+
+    private static void addSlotRows(List<Object[]> rows, Long staffId, Long appointmentId,
+                                    LocalDateTime startTime, LocalDateTime endTime) {
+        for (LocalDateTime slot : slotStarts(startTime, endTime)) {
+            rows.add(new Object[]{staffId, slot, appointmentId});
+        }
+    }
+
+    @Transactional
+    public void release(Long appointmentId) {
+        int released = jdbcTemplate.update("DELETE FROM appointment_slots WHERE appointment_id = ?", appointmentId);
+        log.debug("Released {} slots for appointment {}", released, appointmentId);
+    }
+
+    /**
+     * Re-run the backfill on startup so appointments booked while in locking mode get their slots
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!isEnabled()) {
+            return;
+        }
+        int inserted = jdbcTemplate.update(BACKFILL_SLOTS);
+        log.info("Slot-claim booking mode enabled, backfilled {} slots", inserted);
+    }
+
+    /**
+     * Slot starts covering [startTime, endTime), aligned down to the slot granularity
+     */
+    static List<LocalDateTime> slotStarts(LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime slot = startTime.truncatedTo(ChronoUnit.MINUTES)
+                .minusMinutes(startTime.getMinute() % SLOT_MINUTES);
+        List<LocalDateTime> slots = new ArrayList<>();
+        while (slot.isBefore(endTime)) {
+            slots.add(slot);
+            slot = slot.plusMinutes(SLOT_MINUTES);
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,305 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentInterval;
+import com.appointments.entity.Appointment;
+import com.appointments.exception.AppointmentConflictException;
+import com.appointments.repository.AppointmentRepository;
+import com.appointments.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, per-staff index of non-cancelled appointments used to answer booking conflict
+ * checks without touching the database.
+ *
+ * Each staff timeline is loaded lazily from the database and kept current by create, update and
+ * cancel. A booking first places a hold on its time range; concurrent requests for an overlapping
+ * range on this node are rejected in memory, so only one of them goes on to the locking query.
+ * Timelines are reloaded after {@code booking.index.ttl-seconds} to pick up changes made by
+ * other nodes; the database check remains the source of truth for successful bookings.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaffBookingIndex {
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final ConcurrentHashMap<Long, StaffTimeline> timelines = new ConcurrentHashMap<>();
+
+    private final AtomicLong holdSequence = new AtomicLong();
+
+    @Value("${booking.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.index.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    /**
+     * Place a hold on the given range for the current transaction.
+     * The hold becomes a booked interval for {@code appointmentId} once {@link Hold#bind(Long)} is
+     * called and the transaction commits, and is dropped if the transaction rolls back.
+     * Callers validate {@code staffId} first: a timeline is kept for every staff id seen here.
+     *
+     * @param excludeAppointmentId appointment being rescheduled, ignored when checking overlaps
+     * @throws AppointmentConflictException if the range overlaps a known booking or hold
+     */
+    public Hold hold(Long staffId, LocalDateTime startTime, LocalDateTime endTime, Long excludeAppointmentId) {
+        if (!enabled) {
+            return new Hold(staffId, 0, 0, 0, null);
+        }
+
+        StaffTimeline timeline = timeline(staffId);
+        long holdId = -holdSequence.incrementAndGet();
+        long start = toEpochSecond(startTime);
+        long end = toEpochSecond(endTime);
+
+        if (!timeline.tryInsert(holdId, start, end, excludeAppointmentId == null ? 0 : excludeAppointmentId)) {
+            log.debug("In-memory conflict for staff {} at {}", staffId, startTime);
+            throw new AppointmentConflictException("This time slot is no longer available");
+        }
+
+        Hold hold = new Hold(staffId, holdId, start, end, excludeAppointmentId);
+        TransactionHooks.afterRollback(hold::release);
+        return hold;
+    }
+
+    /**
+     * Record appointments found by the database check that this node did not know about yet
+     */
+    public void recordAll(Long staffId, Collection<Appointment> appointments) {
+        if (!enabled) {
+            return;
+        }
+        StaffTimeline timeline = timelines.get(staffId);
+        if (timeline == null) {
+            return;
+        }
+        for (Appointment appointment : appointments) {
+            timeline.put(appointment.getId(),
+                    toEpochSecond(appointment.getStartTime()),
+                    toEpochSecond(appointment.getEndTime()));
+        }
+    }
+
+    /**
+     * Remove a cancelled appointment once the surrounding transaction commits
+     */
+    public void release(Long staffId, Long appointmentId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            StaffTimeline timeline = timelines.get(staffId);
+            if (timeline != null) {
+                timeline.remove(appointmentId);
+            }
+        });
+    }
+
+    private StaffTimeline timeline(Long staffId) {
+        StaffTimeline timeline = timelines.get(staffId);
+        if (timeline != null && !timeline.isExpired(ttlSeconds)) {
+            return timeline;
+        }
+
+        List<AppointmentInterval> intervals = appointmentRepository.findActiveIntervalsByStaffId(
+                staffId, LocalDateTime.now(ZoneOffset.UTC)
+        );
+        StaffTimeline loaded = new StaffTimeline(intervals.size());
+        for (AppointmentInterval interval : intervals) {
+            loaded.put(interval.getId(), toEpochSecond(interval.getStartTime()), toEpochSecond(interval.getEndTime()));
+        }
+
+        // Carry over holds from the previous timeline so in-flight bookings stay protected
+        if (timeline != null) {
+            timeline.copyHoldsTo(loaded);
+        }
+
+        StaffTimeline current = timelines.compute(staffId,
+                (id, existing) -> existing == null || existing == timeline ? loaded : existing);
+        log.debug("Loaded {} appointments into booking index for staff {}", intervals.size(), staffId);
+        return current;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * A tentative reservation on a staff timeline, tied to the booking transaction
+     */
+    public final class Hold {
+
+        private final Long staffId;
+        private final long holdId;
+        private final long start;
+        private final long end;
+        private final Long replacedAppointmentId;
+
+        private Hold(Long staffId, long holdId, long start, long end, Long replacedAppointmentId) {
+            this.staffId = staffId;
+            this.holdId = holdId;
+            this.start = start;
+            this.end = end;
+            this.replacedAppointmentId = replacedAppointmentId;
+        }
+
+        /**
+         * Turn the hold into a booked interval for the appointment after commit.
+         * When rescheduling, the appointment's previous interval is dropped at the same time.
+         */
+        public void bind(Long appointmentId) {
+            TransactionHooks.afterCommit(() -> {
+                StaffTimeline timeline = timelines.get(staffId);
+                if (timeline != null) {
+                    timeline.remove(holdId);
+                    if (replacedAppointmentId != null) {
+                        timeline.remove(replacedAppointmentId);
+                    }
+                    timeline.put(appointmentId, start, end);
+                }
+            });
+        }
+
+        void release() {
+            StaffTimeline timeline = timelines.get(staffId);
+            if (timeline != null) {
+                timeline.remove(holdId);
+            }
+        }
+    }
+
+    /**
+     * Sorted-array interval set for a single staff member. Ids are appointment ids, or negative
+     * values for holds. All access is synchronized on the instance; contention is per staff only.
+     */
+    static final class StaffTimeline {
+
+        private final long loadedAtNanos = System.nanoTime();
+
+        private long[] starts;
+        private long[] ends;
+        private long[] ids;
+        private int size;
+        private long maxLength;
+
+        StaffTimeline(int capacity) {
+            int initial = Math.max(capacity, 8);
+            starts = new long[initial];
+            ends = new long[initial];
+            ids = new long[initial];
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+
+        synchronized boolean tryInsert(long id, long start, long end, long excludeId) {
+            if (overlaps(start, end, excludeId)) {
+                return false;
+            }
+            insert(id, start, end);
+            return true;
+        }
+
+        synchronized void put(long id, long start, long end) {
+            int existing = indexOf(id);
+            if (existing >= 0) {
+                removeAt(existing);
+            }
+            insert(id, start, end);
+        }
+
+        synchronized void remove(long id) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                removeAt(index);
+            }
+        }
+
+        synchronized void copyHoldsTo(StaffTimeline target) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] < 0) {
+                    target.put(ids[i], starts[i], ends[i]);
+                }
+            }
+        }
+
+        private boolean overlaps(long start, long end, long excludeId) {
+            // Every interval that can overlap [start, end) starts before end and no earlier than start - maxLength
+            int index = upperBound(end) - 1;
+            long earliest = start - maxLength;
+            for (; index >= 0 && starts[index] >= earliest; index--) {
+                if (ends[index] > start && ids[index] != excludeId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * First index whose start is >= the given value
+         */
+        private int upperBound(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void insert(long id, long start, long end) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            int index = upperBound(start);
+            int tail = size - index;
+            System.arraycopy(starts, index, starts, index + 1, tail);
+            System.arraycopy(ends, index, ends, index + 1, tail);
+            System.arraycopy(ids, index, ids, index + 1, tail);
+            starts[index] = start;
+            ends[index] = end;
+            ids[index] = id;
+            size++;
+            maxLength = Math.max(maxLength, end - start);
+        }
+
+        private void removeAt(int index) {
+            int tail = size - index - 1;
+            System.arraycopy(starts, index + 1, starts, index, tail);
+            System.arraycopy(ends, index + 1, ends, index, tail);
+            System.arraycopy(ids, index + 1, ids, index, tail);
+            size--;
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
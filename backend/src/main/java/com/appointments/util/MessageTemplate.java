@@ -0,0 +1,70 @@
+package com.appointments.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message with {@code %name%} placeholders, parsed once into literal and placeholder segments.
+ *
+ * Placeholders keep their {@code %} delimiters as keys, which is also the form SendGrid
+ * substitutions use, so the same values can be rendered locally or sent per personalization.
+ */
+public final class MessageTemplate {
+
+    private final String source;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private MessageTemplate(String source, String[] literals, String[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static MessageTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf('%', position);
+            int close = open < 0 ? -1 : source.indexOf('%', open + 1);
+            if (close < 0) {
+                break;
+            }
+            literals.add(source.substring(position, open));
+            placeholders.add(source.substring(open, close + 1));
+            position = close + 1;
+        }
+        literals.add(source.substring(position));
+        return new MessageTemplate(source, literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * The template text with placeholders intact
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Render with {@code values} keyed by placeholder, including delimiters; missing values render empty
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder out = new StringBuilder(literalLength + placeholders.length * 16);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            String value = values.get(placeholders[i]);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+        return out.append(literals[placeholders.length]).toString();
+    }
+}
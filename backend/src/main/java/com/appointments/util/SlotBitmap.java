@@ -0,0 +1,135 @@
+package com.appointments.util;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Word-level operations on per-day slot bitmaps.
+ *
+ * A day is split into {@value #SLOTS_PER_DAY} slots of {@value #SLOT_MINUTES} minutes and stored in
+ * {@value #WORDS_PER_DAY} longs; bit {@code i} set means slot {@code i} is free. Callers own the
+ * arrays, so hot paths can reuse buffers instead of allocating per request.
+ */
+public final class SlotBitmap {
+
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+
+    private SlotBitmap() {
+    }
+
+    public static long[] newDay() {
+        return new long[WORDS_PER_DAY];
+    }
+
+    /**
+     * Slot index containing the given time of day
+     */
+    public static int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    /**
+     * First slot index starting at or after the given time of day
+     */
+    public static int slotCeil(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute();
+        boolean partial = minutes % SLOT_MINUTES != 0 || time.getSecond() != 0 || time.getNano() != 0;
+        return minutes / SLOT_MINUTES + (partial ? 1 : 0);
+    }
+
+    public static void clear(long[] bits) {
+        Arrays.fill(bits, 0L);
+    }
+
+    /**
+     * Set slots [from, to) of the day whose first bit is at {@code offset}
+     */
+    public static void setRange(long[] bits, int offset, int from, int to) {
+        applyRange(bits, offset, from, to, true);
+    }
+
+    /**
+     * Clear slots [from, to) of the day whose first bit is at {@code offset}
+     */
+    public static void clearRange(long[] bits, int offset, int from, int to) {
+        applyRange(bits, offset, from, to, false);
+    }
+
+    private static void applyRange(long[] bits, int offset, int from, int to, boolean set) {
+        from = Math.max(from, 0) + offset;
+        to = Math.min(to, SLOTS_PER_DAY) + offset;
+        if (from >= to) {
+            return;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long mask = -1L;
+            if (word == firstWord) {
+                mask &= firstMask;
+            }
+            if (word == lastWord) {
+                mask &= lastMask;
+            }
+            if (set) {
+                bits[word] |= mask;
+            } else {
+                bits[word] &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * Reduce a free-slot bitmap in place so that bit {@code i} stays set only when slots
+     * {@code i .. i + length - 1} are all free. Uses log2(length) shift-and passes over the words,
+     * so the array must hold a single day.
+     */
+    public static void keepRunStarts(long[] bits, int length) {
+        int covered = 1;
+        while (covered < length) {
+            int shift = Math.min(covered, length - covered);
+            andShiftedRight(bits, shift);
+            covered += shift;
+        }
+    }
+
+    /**
+     * bits[i] &= bits[i + shift] for every slot, treating slots past the end as busy
+     */
+    private static void andShiftedRight(long[] bits, int shift) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        int words = bits.length;
+        for (int i = 0; i < words; i++) {
+            int source = i + wordShift;
+            long low = source < words ? bits[source] : 0L;
+            long high = source + 1 < words ? bits[source + 1] : 0L;
+            long shifted = bitShift == 0 ? low : (low >>> bitShift) | (high << (64 - bitShift));
+            bits[i] &= shifted;
+        }
+    }
+
+    /**
+     * Next set bit at or after {@code from}, or -1 if none
+     */
+    public static int nextSetBit(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << from);
+        while (true) {
+            if (current != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(current);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            current = bits[word];
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.appointments.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} levels of {@value #WHEEL_SIZE} buckets each, where a
+ * bucket at level {@code n} spans {@code WHEEL_SIZE^n} ticks. Entries are placed at the coarsest
+ * level that keeps them within one rotation and cascade to finer levels as time advances.
+ *
+ * Scheduling and cancelling are O(1): buckets are intrusive doubly linked lists and every entry is
+ * reachable by key. Scheduling an existing key moves it. Not thread-safe; callers synchronize.
+ */
+public final class TimingWheel<K> {
+
+    private static final int BITS = 6;
+    private static final int WHEEL_SIZE = 1 << BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Entry<K>[][] buckets;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new Entry[LEVELS][WHEEL_SIZE];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Schedule {@code key} to expire at {@code deadlineMillis}; a deadline already passed expires on the next tick
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        Entry<K> entry = new Entry<>(key, tick);
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    public boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Advance to {@code nowMillis} and return the keys that expired, in tick order
+     */
+    public List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Coarse levels first, so entries cascading down land in buckets still ahead of this tick
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+                }
+            }
+            Entry<K> entry = detachBucket(0, (int) (currentTick & MASK));
+            while (entry != null) {
+                Entry<K> next = entry.next;
+                entry.next = null;
+                if (entry.tick <= currentTick) {
+                    entries.remove(entry.key);
+                    expired.add(entry.key);
+                } else {
+                    place(entry);
+                }
+                entry = next;
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(int level, int index) {
+        Entry<K> entry = detachBucket(level, index);
+        while (entry != null) {
+            Entry<K> next = entry.next;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        long delta = entry.tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((entry.tick >>> (BITS * level)) & MASK);
+        entry.level = level;
+        entry.index = index;
+        entry.prev = null;
+        entry.next = buckets[level][index];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        buckets[level][index] = entry;
+    }
+
+    private void unlink(Entry<K> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else if (buckets[entry.level][entry.index] == entry) {
+            buckets[entry.level][entry.index] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    /**
+     * Empty a bucket and return its former head; the entries stay chained through {@code next}
+     */
+    private Entry<K> detachBucket(int level, int index) {
+        Entry<K> head = buckets[level][index];
+        buckets[level][index] = null;
+        for (Entry<K> entry = head; entry != null; entry = entry.next) {
+            entry.prev = null;
+        }
+        return head;
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long tick;
+        private int level;
+        private int index;
+        private Entry<K> prev;
+        private Entry<K> next;
+
+        private Entry(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
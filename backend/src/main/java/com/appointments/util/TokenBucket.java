@@ -0,0 +1,49 @@
+package com.appointments.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter: refills at {@code permitsPerSecond} up to {@code burst} tokens.
+ * Callers reserve a token and sleep until it is theirs, so waiting happens outside the lock.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take one token, waiting at most {@code maxWaitMillis} for it
+     *
+     * @return false, without consuming a token, if it would not be available in time
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+            if (waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)) {
+                return false;
+            }
+            tokens -= 1;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
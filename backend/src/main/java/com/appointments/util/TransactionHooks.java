@@ -0,0 +1,78 @@
+package com.appointments.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Helpers for running in-memory side effects only once the surrounding transaction has finished
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Run the action after the current transaction commits, or immediately when no transaction is active
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Like {@link #afterCommit}, but actions registered under an equal key in the same transaction run
+     * once, e.g. one cache refresh per staff member after a transaction that touched many of their rows
+     */
+    public static void afterCommitOnce(Object key, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof KeyedActions keyed) {
+                keyed.actions.putIfAbsent(key, action);
+                return;
+            }
+        }
+        KeyedActions keyed = new KeyedActions();
+        keyed.actions.put(key, action);
+        TransactionSynchronizationManager.registerSynchronization(keyed);
+    }
+
+    /**
+     * Run the action after the current transaction rolls back (no-op outside a transaction)
+     */
+    public static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static final class KeyedActions implements TransactionSynchronization {
+        private final Map<Object, Runnable> actions = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            actions.values().forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- ==============================================
+-- Batched calendar push
+-- A calendar_events row per appointment and provider now also carries the push
+-- state. Booking changes mark the row PENDING and bump sync_version; a pusher
+-- claims due rows, sends the appointment's latest state in provider batches and
+-- records the outcome only if sync_version is unchanged. Several changes before a
+-- push therefore coalesce into one call with the final state.
+-- ==============================================
+
+ALTER TABLE calendar_events
+    MODIFY external_event_id VARCHAR(500) NULL COMMENT 'NULL until the provider has created the event',
+    MODIFY sync_status ENUM('SYNCED', 'PENDING', 'FAILED', 'DELETED') NOT NULL DEFAULT 'PENDING',
+    ADD COLUMN account_user_id BIGINT NULL COMMENT 'User whose OAuth account owns the calendar' AFTER appointment_id,
+    ADD COLUMN pending_action ENUM('UPSERT', 'DELETE') NULL AFTER sync_status,
+    ADD COLUMN sync_version INT NOT NULL DEFAULT 0 AFTER pending_action,
+    ADD COLUMN sync_attempts INT NOT NULL DEFAULT 0 AFTER sync_version,
+    ADD COLUMN next_sync_at DATETIME NULL COMMENT 'UTC; due time while PENDING, lease end while in flight' AFTER sync_attempts,
+    ADD CONSTRAINT fk_calendar_events_account FOREIGN KEY (account_user_id) REFERENCES users(id) ON DELETE CASCADE,
+    ADD UNIQUE KEY unique_appointment_provider (appointment_id, provider);
+
+CREATE INDEX idx_sync_status_next ON calendar_events(sync_status, next_sync_at);
+
+-- Events pushed so far went to the staff member's calendar
+UPDATE calendar_events e
+JOIN appointments a ON a.id = e.appointment_id
+JOIN staff_profiles s ON s.id = a.staff_id
+SET e.account_user_id = s.user_id;
@@ -0,0 +1,27 @@
+-- ==============================================
+-- Incremental inbound calendar sync
+-- Each webhook subscription keeps the provider's cursor for its calendar: Google's
+-- nextSyncToken or the Microsoft Graph deltaLink. A notification only stamps
+-- sync_requested_at; a worker later claims the subscription, pulls the changes
+-- since the cursor and stores the new one. Notifications arriving before the claim
+-- keep the first stamp, so a burst on one channel becomes a single fetch.
+-- A periodic full sync moves the listing window forward (Graph fixes it when the
+-- delta starts) and picks up subscriptions that never had a notification.
+-- External busy events become ONE_TIME staff breaks keyed by the provider event id.
+-- ==============================================
+
+ALTER TABLE webhook_subscriptions
+    ADD COLUMN calendar_id VARCHAR(255) NOT NULL DEFAULT 'primary' AFTER channel_id,
+    ADD COLUMN client_state VARCHAR(255) NULL COMMENT 'Secret echoed by the provider with every notification' AFTER calendar_id,
+    ADD COLUMN sync_token TEXT NULL COMMENT 'Google nextSyncToken or Graph deltaLink; NULL forces a full sync' AFTER client_state,
+    ADD COLUMN sync_requested_at DATETIME NULL COMMENT 'UTC; first notification not yet fetched' AFTER sync_token,
+    ADD COLUMN sync_claimed_until DATETIME NULL COMMENT 'UTC; lease of the worker fetching changes' AFTER sync_requested_at,
+    ADD COLUMN last_synced_at DATETIME NULL AFTER sync_claimed_until,
+    ADD COLUMN full_synced_at DATETIME NULL COMMENT 'UTC; last sync that listed the whole window' AFTER last_synced_at;
+
+CREATE INDEX idx_sync_requested ON webhook_subscriptions(is_active, sync_requested_at);
+
+ALTER TABLE staff_breaks
+    ADD COLUMN provider ENUM('GOOGLE', 'MICROSOFT') NULL COMMENT 'Set for busy blocks imported from an external calendar' AFTER reason,
+    ADD COLUMN external_event_id VARCHAR(500) NULL AFTER provider,
+    ADD UNIQUE KEY unique_staff_external_event (staff_id, provider, external_event_id(255));
@@ -0,0 +1,11 @@
+-- ==============================================
+-- Proactive OAuth token refresh
+-- A background scan walks idx_expires for tokens expiring within the refresh
+-- window and claims them with FOR UPDATE SKIP LOCKED, so each token is refreshed
+-- by one node. refresh_claimed_until is the claim's lease while a refresh is in
+-- flight and the backoff after a failed one.
+-- ==============================================
+
+ALTER TABLE oauth_tokens
+    ADD COLUMN refresh_claimed_until DATETIME NULL COMMENT 'UTC; refresh lease or backoff after a failure' AFTER expires_at,
+    ADD COLUMN refresh_failures INT NOT NULL DEFAULT 0 COMMENT 'Consecutive failed refreshes' AFTER refresh_claimed_until;
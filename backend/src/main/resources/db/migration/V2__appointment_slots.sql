@@ -0,0 +1,43 @@
+-- ==============================================
+-- Slot-claim booking mode
+-- One row per 5-minute slot held by an active appointment.
+-- The primary key turns double bookings into duplicate-key errors
+-- instead of relying on range locks over appointments.
+-- ==============================================
+
+CREATE TABLE appointment_slots (
+    staff_id BIGINT NOT NULL,
+    slot_start DATETIME NOT NULL COMMENT 'UTC timestamp, aligned to 5 minutes',
+    appointment_id BIGINT NOT NULL,
+    PRIMARY KEY (staff_id, slot_start),
+    FOREIGN KEY (staff_id) REFERENCES staff_profiles(id) ON DELETE CASCADE,
+    FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE CASCADE,
+    INDEX idx_appointment (appointment_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill slots for upcoming, non-cancelled appointments.
+-- The offsets run to the longest such appointment, so multi-day bookings are claimed in full.
+SET SESSION cte_max_recursion_depth = 1000000;
+
+INSERT IGNORE INTO appointment_slots (staff_id, slot_start, appointment_id)
+WITH RECURSIVE slot_bound (max_n) AS (
+    SELECT COALESCE(MAX(CEIL(TIMESTAMPDIFF(SECOND, start_time, end_time) / 300)), 0)
+    FROM appointments
+    WHERE status <> 'CANCELLED'
+      AND end_time > UTC_TIMESTAMP()
+),
+slot_offsets (n) AS (
+    SELECT 0
+    UNION ALL
+    SELECT o.n + 1 FROM slot_offsets o JOIN slot_bound b ON o.n < b.max_n
+),
+aligned AS (
+    SELECT id, staff_id, end_time,
+           start_time - INTERVAL (MINUTE(start_time) % 5) MINUTE - INTERVAL SECOND(start_time) SECOND AS first_slot
+    FROM appointments
+    WHERE status <> 'CANCELLED'
+      AND end_time > UTC_TIMESTAMP()
+)
+SELECT a.staff_id, a.first_slot + INTERVAL (o.n * 5) MINUTE, a.id
+FROM aligned a
+JOIN slot_offsets o ON a.first_slot + INTERVAL (o.n * 5) MINUTE < a.end_time;
@@ -0,0 +1,21 @@
+-- ==============================================
+-- Pooled id generation for appointments and reminders
+-- IDENTITY columns force Hibernate to insert rows one by one to read back
+-- the generated key. MySQL has no sequences, so Hibernate emulates them with
+-- single-row tables and hands out blocks of 50 ids per round trip, which
+-- lets inserts go out as JDBC batches.
+-- AUTO_INCREMENT is kept for manual inserts, but rows should be created through
+-- the application so ids stay out of blocks already handed to a node.
+-- ==============================================
+
+CREATE TABLE appointments_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+CREATE TABLE reminders_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+-- Start past the existing ids plus one allocation block (pooled optimizer reads next_val as the block's upper bound)
+INSERT INTO appointments_seq (next_val) SELECT COALESCE(MAX(id), 0) + 51 FROM appointments;
+INSERT INTO reminders_seq (next_val) SELECT COALESCE(MAX(id), 0) + 51 FROM reminders;
@@ -0,0 +1,29 @@
+-- ==============================================
+-- Recurring appointment series
+-- Each occurrence is a regular appointment row; the series keeps the rule
+-- it was expanded from.
+-- ==============================================
+
+CREATE TABLE appointment_series (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    staff_id BIGINT NOT NULL,
+    service_id BIGINT NOT NULL,
+    frequency ENUM('DAILY', 'WEEKLY') NOT NULL,
+    repeat_interval INT NOT NULL DEFAULT 1 COMMENT 'Every N days or weeks',
+    occurrence_count INT COMMENT 'Requested number of occurrences, if bounded by count',
+    until_date DATE COMMENT 'Last date an occurrence may start on (UTC), if bounded by date',
+    first_start_time DATETIME NOT NULL COMMENT 'UTC timestamp',
+    duration_minutes INT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (staff_id) REFERENCES staff_profiles(id) ON DELETE CASCADE,
+    FOREIGN KEY (service_id) REFERENCES services(id) ON DELETE CASCADE,
+    INDEX idx_user (user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE appointments
+    ADD COLUMN series_id BIGINT NULL AFTER service_id,
+    ADD CONSTRAINT fk_appointments_series FOREIGN KEY (series_id) REFERENCES appointment_series(id) ON DELETE SET NULL,
+    ADD INDEX idx_series (series_id);
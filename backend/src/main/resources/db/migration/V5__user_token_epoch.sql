@@ -0,0 +1,10 @@
+-- ==============================================
+-- Account epoch embedded in access tokens
+-- Bumping a user's token_epoch invalidates every token issued before the bump.
+-- Requests are authenticated from the token claims alone and checked against an
+-- in-memory copy of recently changed accounts, refreshed from updated_at.
+-- ==============================================
+
+ALTER TABLE users ADD COLUMN token_epoch INT NOT NULL DEFAULT 0 AFTER is_active;
+
+CREATE INDEX idx_users_updated_at ON users(updated_at);
@@ -0,0 +1,17 @@
+-- ==============================================
+-- Revoked JWTs, keyed by their jti claim
+-- Each node keeps the unexpired rows in memory behind a Bloom filter and
+-- picks up new rows by revoked_at. Rows are deleted once the token expires.
+-- ==============================================
+
+CREATE TABLE revoked_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    jti VARCHAR(64) NOT NULL,
+    user_id BIGINT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY unique_jti (jti),
+    INDEX idx_revoked_at (revoked_at),
+    INDEX idx_expires_at (expires_at),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,14 @@
+-- ==============================================
+-- Lease-based reminder claiming
+-- A node claims a batch of due reminders with SELECT ... FOR UPDATE SKIP LOCKED,
+-- marks them PROCESSING with a lease, and commits before sending. Other nodes skip
+-- the locked and claimed rows; a claim whose lease expires is handed out again.
+-- ==============================================
+
+ALTER TABLE reminders
+    MODIFY status ENUM('PENDING', 'PROCESSING', 'SENT', 'FAILED', 'CANCELLED') NOT NULL DEFAULT 'PENDING',
+    ADD COLUMN claimed_by VARCHAR(64) NULL AFTER status,
+    ADD COLUMN claimed_until DATETIME NULL COMMENT 'UTC timestamp' AFTER claimed_by;
+
+-- Status first, so claiming scans only due PENDING rows in time order
+CREATE INDEX idx_status_scheduled ON reminders(status, scheduled_time);
@@ -0,0 +1,45 @@
+-- ==============================================
+-- Policy-derived reminders
+-- Reminder offsets are defined once in reminder_policies: per service, or as the
+-- default (service_id NULL) for services without policies of their own. With
+-- reminders.mode=policy, due reminders are computed from appointments.start_time
+-- and a reminders row is only written when an attempt is made, so bookings,
+-- reschedules and cancellations write no reminder rows.
+-- ==============================================
+
+CREATE TABLE reminder_policies (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    service_id BIGINT NULL COMMENT 'NULL = default for services without their own policies',
+    type ENUM('EMAIL', 'SMS', 'PUSH') NOT NULL,
+    offset_minutes INT NOT NULL COMMENT 'Minutes before start_time',
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (service_id) REFERENCES services(id) ON DELETE CASCADE,
+    UNIQUE KEY unique_service_type_offset (service_id, type, offset_minutes)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- The offsets ReminderService has always used
+INSERT INTO reminder_policies (service_id, type, offset_minutes) VALUES
+    (NULL, 'EMAIL', 1440),
+    (NULL, 'EMAIL', 60),
+    (NULL, 'SMS', 15);
+
+-- Which policy occurrence a row is an attempt for: the offset and the start time it was derived from
+ALTER TABLE reminders
+    ADD COLUMN offset_minutes INT NULL AFTER type,
+    ADD COLUMN appointment_start DATETIME NULL COMMENT 'UTC timestamp' AFTER offset_minutes;
+
+CREATE INDEX idx_appointment_offset ON reminders(appointment_id, type, offset_minutes);
+
+-- Backfill live rows so policy mode recognises them and does not send twice. Retries move
+-- scheduled_time later by at most 15 minutes, so the offset is recovered from the gap.
+UPDATE reminders r
+JOIN appointments a ON a.id = r.appointment_id
+SET r.offset_minutes = CASE
+        WHEN r.type = 'SMS' THEN 15
+        WHEN TIMESTAMPDIFF(MINUTE, r.scheduled_time, a.start_time) > 300 THEN 1440
+        ELSE 60
+    END,
+    r.appointment_start = a.start_time
+WHERE r.status <> 'CANCELLED';
@@ -0,0 +1,29 @@
+-- ==============================================
+-- Transactional outbox for post-booking side effects
+-- Booking transactions only insert outbox rows; a relay claims them in batches
+-- after commit and hands them to the handler named by topic (reminders, calendar).
+-- Rows of one appointment and topic are delivered in id order: an event is only
+-- claimed once every earlier event for the same appointment and topic is done or
+-- has failed permanently. Delivery is at least once, so handlers are idempotent.
+-- ids are assigned at insert, not at commit, so a lower id can commit after a
+-- higher one; ordering is still safe because both handlers re-read the
+-- appointment's current state instead of applying the event payload.
+-- ==============================================
+
+CREATE TABLE outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    topic VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL COMMENT 'Appointment id',
+    event_type VARCHAR(50) NOT NULL,
+    status ENUM('PENDING', 'PROCESSING', 'DONE', 'FAILED') NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NOT NULL COMMENT 'UTC timestamp',
+    claimed_by VARCHAR(64) NULL,
+    claimed_until DATETIME NULL COMMENT 'UTC timestamp',
+    last_error TEXT,
+    created_at DATETIME NOT NULL COMMENT 'UTC timestamp',
+    processed_at DATETIME NULL COMMENT 'UTC timestamp',
+    INDEX idx_topic_status_next (topic, status, next_attempt_at),
+    INDEX idx_topic_aggregate (topic, aggregate_id, id),
+    INDEX idx_status_processed (status, processed_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,96 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentResponse;
+import com.appointments.dto.AppointmentView;
+import com.appointments.entity.Appointment;
+import com.appointments.entity.Service;
+import com.appointments.entity.StaffProfile;
+import com.appointments.entity.User;
+import com.appointments.repository.AppointmentPageQuery;
+import com.appointments.repository.AppointmentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listings are read as projections straight from the FK columns, so their cost in statements does
+ * not grow with the number of appointments listed
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class AppointmentListingTest {
+
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void listingCostsOneStatementWhateverItsSize(int appointments) {
+        User client = persist(user("client@example.com"));
+        StaffProfile staff = persist(StaffProfile.builder().user(persist(user("staff@example.com"))).build());
+        Service service = persist(Service.builder().name("Consultation").durationMinutes(30)
+                .price(BigDecimal.TEN).build());
+        for (int i = 0; i < appointments; i++) {
+            LocalDateTime start = FIRST_START.plusMinutes(30L * i);
+            entityManager.persist(Appointment.builder().user(client).staff(staff).service(service)
+                    .startTime(start).endTime(start.plusMinutes(30)).status(Appointment.Status.CONFIRMED)
+                    .build());
+            if (i % 500 == 499) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<AppointmentView> rows = appointmentRepository.findPage(AppointmentPageQuery.builder()
+                .staffId(staff.getId())
+                .excludeCancelled(true)
+                .limit(appointments)
+                .build());
+        List<AppointmentResponse> responses = rows.stream()
+                .map(AppointmentService::mapToResponse)
+                .collect(Collectors.toList());
+
+        assertThat(responses).hasSize(appointments);
+        assertThat(responses.get(appointments - 1).getUserId()).isEqualTo(client.getId());
+        assertThat(responses.get(appointments - 1).getServiceId()).isEqualTo(service.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static User user(String email) {
+        return User.builder().email(email).passwordHash("hash").firstName("Test").lastName("User").build();
+    }
+}
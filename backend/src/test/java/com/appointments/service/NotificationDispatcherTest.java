@@ -0,0 +1,145 @@
+package com.appointments.service;
+
+import com.appointments.service.NotificationService.EmailRecipient;
+import com.appointments.util.MessageTemplate;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDispatcherTest {
+
+    private static final MessageTemplate SUBJECT = MessageTemplate.compile("Your appointment, %name%");
+    private static final MessageTemplate BODY = MessageTemplate.compile("<p>See you at %time%.</p>");
+
+    private NotificationStubServer stub;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new NotificationStubServer();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void smsGoesToTheConfiguredBaseUrlWithBasicAuth() {
+        NotificationService service = stub.notificationService();
+
+        assertThat(service.sendSMS("+15551234567", "See you at 9:00")).isTrue();
+
+        String form = URLDecoder.decode(stub.smsRequests.get(0), StandardCharsets.UTF_8);
+        assertThat(form).isEqualTo("To=+15551234567&From=+15550000000&Body=See you at 9:00");
+        assertThat(stub.authorizations.get(0)).isEqualTo(
+                "Basic " + Base64.getEncoder().encodeToString("AC123:secret".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void capsRequestsInFlightPerProvider() {
+        stub.delay(20);
+        NotificationDispatcher dispatcher = stub.dispatcher(4, 10_000, 1000);
+        try {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(dispatcher.sendSms("+1555000" + i, "Reminder " + i));
+            }
+
+            assertThat(results).allSatisfy(result -> assertThat(result.join()).isTrue());
+            assertThat(stub.smsRequests).hasSize(100);
+            assertThat(stub.peakInFlight.get()).isBetween(2, 4);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void limitsSendRateToTheProviderQuota() {
+        NotificationDispatcher dispatcher = stub.dispatcher(16, 50, 1000);
+        try {
+            long start = System.nanoTime();
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(dispatcher.sendSms("+1555000" + i, "Reminder " + i));
+            }
+            results.forEach(CompletableFuture::join);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // A one-second burst of 50, then 50 more at 50 per second
+            assertThat(elapsedMillis).isGreaterThanOrEqualTo(900);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void groupsEmailsIntoMultiPersonalizationRequests() {
+        NotificationDispatcher dispatcher = stub.dispatcher(4, 10_000, 1000);
+        try {
+            List<CompletableFuture<Boolean>> results = dispatcher.sendEmails(SUBJECT, BODY, recipients(2500, -1));
+
+            assertThat(results).hasSize(2500).allSatisfy(result -> assertThat(result.join()).isTrue());
+            assertThat(stub.mailRequests).hasSize(3);
+            assertThat(stub.mailRequests.stream().mapToInt(mail -> mail.get("personalizations").size()).sorted())
+                    .containsExactly(500, 1000, 1000);
+            JsonNode personalization = stub.mailRequests.get(0).get("personalizations").get(0);
+            String email = personalization.get("to").get(0).get("email").asText();
+            assertThat(personalization.get("substitutions").get("%name%").asText())
+                    .isEqualTo("Client " + email.substring(4, email.indexOf('@')));
+            assertThat(stub.mailRequests.get(0).get("subject").asText()).isEqualTo(SUBJECT.getSource());
+            assertThat(stub.authorizations).allMatch("Bearer test-key"::equals);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void rejectedBatchIsRetriedPerRecipientSoOnlyTheBadAddressFails() {
+        stub.respondToMail(mail -> {
+            for (JsonNode personalization : mail.get("personalizations")) {
+                if (personalization.get("to").get(0).get("email").asText().startsWith("bad")) {
+                    return 400;
+                }
+            }
+            return 202;
+        });
+        NotificationDispatcher dispatcher = stub.dispatcher(4, 10_000, 1000);
+        try {
+            List<CompletableFuture<Boolean>> results = dispatcher.sendEmails(SUBJECT, BODY, recipients(10, 3));
+
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).join()).as("recipient %d", i).isEqualTo(i != 3);
+            }
+            // The rejected batch, then one request per recipient rendered locally
+            assertThat(stub.mailRequests).hasSize(11);
+            JsonNode single = stub.mailRequests.stream()
+                    .filter(mail -> mail.get("personalizations").get(0).get("to").get(0).get("email").asText()
+                            .equals("user5@example.com"))
+                    .findFirst().orElseThrow();
+            assertThat(single.get("subject").asText()).isEqualTo("Your appointment, Client 5");
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    private static List<EmailRecipient> recipients(int count, int badIndex) {
+        List<EmailRecipient> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String email = (i == badIndex ? "bad" : "user") + i + "@example.com";
+            recipients.add(new EmailRecipient(email, Map.of("%name%", "Client " + i, "%time%", "09:00")));
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,124 @@
+package com.appointments.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Local stand-in for the SendGrid and Twilio endpoints, recording requests and peak concurrency
+ */
+class NotificationStubServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    final List<JsonNode> mailRequests = new CopyOnWriteArrayList<>();
+    final List<String> smsRequests = new CopyOnWriteArrayList<>();
+    final List<String> authorizations = new CopyOnWriteArrayList<>();
+    final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final HttpServer server;
+    private volatile ToIntFunction<JsonNode> mailStatus = mail -> 202;
+    private volatile long delayMillis;
+
+    NotificationStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v3/mail/send", exchange -> handle(exchange, body -> {
+            JsonNode mail = JSON.readTree(body);
+            mailRequests.add(mail);
+            return mailStatus.applyAsInt(mail);
+        }));
+        server.createContext("/2010-04-01/Accounts/", exchange -> handle(exchange, body -> {
+            smsRequests.add(body);
+            return 201;
+        }));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void respondToMail(ToIntFunction<JsonNode> status) {
+        this.mailStatus = status;
+    }
+
+    void delay(long millis) {
+        this.delayMillis = millis;
+    }
+
+    NotificationService notificationService() {
+        NotificationService service = new NotificationService();
+        ReflectionTestUtils.setField(service, "sendGridApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "sendGridBaseUrl", baseUrl());
+        ReflectionTestUtils.setField(service, "fromEmail", "noreply@example.com");
+        ReflectionTestUtils.setField(service, "fromName", "Appointments");
+        ReflectionTestUtils.setField(service, "twilioAccountSid", "AC123");
+        ReflectionTestUtils.setField(service, "twilioAuthToken", "secret");
+        ReflectionTestUtils.setField(service, "twilioBaseUrl", baseUrl());
+        ReflectionTestUtils.setField(service, "twilioFromNumber", "+15550000000");
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "requestTimeoutMs", 5000L);
+        service.init();
+        return service;
+    }
+
+    NotificationDispatcher dispatcher(int maxInFlight, double ratePerSecond, int emailBatchSize) {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(notificationService(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "emailMaxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(dispatcher, "emailRatePerSecond", ratePerSecond);
+        ReflectionTestUtils.setField(dispatcher, "emailBatchSize", emailBatchSize);
+        ReflectionTestUtils.setField(dispatcher, "smsMaxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(dispatcher, "smsRatePerSecond", ratePerSecond);
+        ReflectionTestUtils.setField(dispatcher, "acquireTimeoutMs", 30_000L);
+        dispatcher.init();
+        return dispatcher;
+    }
+
+    private void handle(HttpExchange exchange, StubHandler handler) throws IOException {
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        int status;
+        try {
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            status = handler.handle(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = 500;
+        } finally {
+            // Before responding: the client may start its next request as soon as this one completes
+            inFlight.decrementAndGet();
+        }
+        try {
+            exchange.sendResponseHeaders(status, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private interface StubHandler {
+        int handle(String body) throws IOException;
+    }
+}
@@ -0,0 +1,106 @@
+package com.appointments.service;
+
+import com.appointments.dto.ReminderDispatchView;
+import com.appointments.entity.Appointment;
+import com.appointments.entity.Reminder;
+import com.appointments.entity.Service;
+import com.appointments.entity.StaffProfile;
+import com.appointments.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Claiming a batch of reminders and rendering their texts takes the same few statements whatever
+ * the batch size: no per-reminder lookups of appointments, users or staff
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ReminderClaimService.class, ReminderTemplates.class})
+class ReminderDispatchTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReminderClaimService reminderClaimService;
+
+    @Autowired
+    private ReminderTemplates reminderTemplates;
+
+    @MockBean
+    private ReminderTimer reminderTimer;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1_000})
+    void claimingAndRenderingABatchTakesConstantStatements(int reminders) {
+        User staffUser = persist(user("staff@example.com", "Dana", "Lee"));
+        StaffProfile staff = persist(StaffProfile.builder().user(staffUser).build());
+        Service service = persist(Service.builder().name("Consultation").durationMinutes(30)
+                .price(BigDecimal.TEN).build());
+        for (int i = 0; i < reminders; i++) {
+            User client = persist(user("client" + i + "@example.com", "Client", String.valueOf(i)));
+            LocalDateTime start = NOW.plusHours(1).plusMinutes(30L * i);
+            Appointment appointment = persist(Appointment.builder().user(client).staff(staff).service(service)
+                    .startTime(start).endTime(start.plusMinutes(30)).status(Appointment.Status.CONFIRMED)
+                    .build());
+            Reminder.Type type = i % 2 == 0 ? Reminder.Type.EMAIL : Reminder.Type.SMS;
+            persist(Reminder.builder().appointment(appointment).type(type).recipient(client.getEmail())
+                    .scheduledTime(NOW.minusMinutes(i % 60)).appointmentStart(start)
+                    .status(Reminder.Status.PENDING).retryCount(0).build());
+            if (i % 500 == 499) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ReminderDispatchView> batch = reminderClaimService.claimDue(NOW, reminders);
+        List<String> texts = batch.stream()
+                .map(reminder -> {
+                    ReminderTemplates.Compiled template = reminderTemplates.forType(reminder.getType());
+                    return template.getBody().render(template.values(reminder));
+                })
+                .toList();
+
+        assertThat(batch).hasSize(reminders);
+        assertThat(texts).allSatisfy(text -> assertThat(text).contains("with Dana Lee"));
+        // Lock the due ids, mark them claimed, read the dispatch views
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static User user(String email, String firstName, String lastName) {
+        return User.builder().email(email).passwordHash("hash").firstName(firstName).lastName(lastName).build();
+    }
+}
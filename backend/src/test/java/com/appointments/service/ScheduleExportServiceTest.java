@@ -0,0 +1,153 @@
+package com.appointments.service;
+
+import com.appointments.entity.Service;
+import com.appointments.entity.StaffProfile;
+import com.appointments.entity.User;
+import com.appointments.repository.ServiceRepository;
+import com.appointments.repository.StaffProfileRepository;
+import com.appointments.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports reach the response in buffer-sized chunks while the cursor is read, so the heap held for
+ * an export does not grow with the number of rows. The export reads through its own stateless
+ * session, so rows are committed rather than written in a test transaction.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ScheduleExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScheduleExportServiceTest {
+
+    private static final String INSERT_APPOINTMENT =
+            "INSERT INTO appointments (id, user_id, staff_id, service_id, start_time, end_time, status, notes, " +
+            "version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, 'CONFIRMED', ?, 0, ?, ?)";
+
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2030, 1, 1, 8, 0);
+    // BufferedWriter holds 8K chars, and the encoder under it 8K bytes
+    private static final int MAX_WRITE_BYTES = 16 * 1024;
+
+    @Autowired
+    private ScheduleExportService scheduleExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StaffProfileRepository staffProfileRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void deleteRows() {
+        jdbcTemplate.update("DELETE FROM appointments");
+        jdbcTemplate.update("DELETE FROM staff_profiles");
+        jdbcTemplate.update("DELETE FROM services");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1000, CSV", "50000, CSV", "1000, NDJSON", "50000, NDJSON"})
+    void streamsInBoundedChunks(int appointments, ScheduleExportService.Format format) throws Exception {
+        Long staffId = insertAppointments(appointments);
+        // Stream from the H2 cursor in pages; the MySQL streaming sentinel is rejected by other drivers
+        ReflectionTestUtils.setField(scheduleExportService, "fetchSize", 100);
+        RecordingOutputStream out = new RecordingOutputStream();
+
+        scheduleExportService.export(staffId, FIRST_START, FIRST_START.plusYears(10), format).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        if (format == ScheduleExportService.Format.CSV) {
+            assertThat(lines).hasSize(appointments + 1);
+            assertThat(lines[1]).endsWith(",CONFIRMED,note 0,,2030-01-01T00:00");
+            assertThat(lines[appointments]).contains(",CONFIRMED,\"note, " + (appointments - 1) + "\",");
+        } else {
+            assertThat(lines).hasSize(appointments);
+            JsonNode last = objectMapper.readTree(lines[appointments - 1]);
+            assertThat(last.get("staffId").asLong()).isEqualTo(staffId);
+            assertThat(last.get("notes").asText()).isEqualTo("note, " + (appointments - 1));
+        }
+        assertThat(out.largestWrite).isLessThanOrEqualTo(MAX_WRITE_BYTES);
+    }
+
+    private Long insertAppointments(int appointments) {
+        User client = userRepository.save(user("client@example.com"));
+        StaffProfile staff = staffProfileRepository.save(
+                StaffProfile.builder().user(userRepository.save(user("staff@example.com"))).build());
+        Service service = serviceRepository.save(Service.builder().name("Consultation").durationMinutes(30)
+                .price(BigDecimal.TEN).build());
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2030, 1, 1, 0, 0));
+        List<Object[]> rows = new ArrayList<>(appointments);
+        for (int i = 0; i < appointments; i++) {
+            LocalDateTime start = FIRST_START.plusMinutes(30L * i);
+            // Every other note needs CSV quoting
+            rows.add(new Object[]{i + 1, client.getId(), staff.getId(), service.getId(), Timestamp.valueOf(start),
+                    Timestamp.valueOf(start.plusMinutes(30)), i % 2 == 0 ? "note " + i : "note, " + i,
+                    createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_APPOINTMENT, rows);
+        return staff.getId();
+    }
+
+    private static User user(String email) {
+        return User.builder().email(email).passwordHash("hash").firstName("Test").lastName("User").build();
+    }
+
+    /**
+     * Keeps the bytes for assertions, and records the largest single write
+     */
+    private static class RecordingOutputStream extends ByteArrayOutputStream {
+        private int largestWrite;
+
+        @Override
+        public void write(int b) {
+            record(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            record(len);
+            super.write(b, off, len);
+        }
+
+        private void record(int len) {
+            largestWrite = Math.max(largestWrite, len);
+        }
+    }
+}
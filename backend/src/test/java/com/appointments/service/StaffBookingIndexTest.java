@@ -0,0 +1,167 @@
+package com.appointments.service;
+
+import com.appointments.dto.AppointmentInterval;
+import com.appointments.exception.AppointmentConflictException;
+import com.appointments.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StaffBookingIndexTest {
+
+    private static final long STAFF_ID = 7L;
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private AppointmentRepository appointmentRepository;
+    private StaffBookingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findActiveIntervalsByStaffId(eq(STAFF_ID), any()))
+                .thenReturn(List.of(interval(100L, NINE, NINE.plusMinutes(30))));
+        index = new StaffBookingIndex(appointmentRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 60L);
+    }
+
+    @Test
+    void rejectsHoldOverlappingLoadedAppointment() {
+        assertThatThrownBy(() -> index.hold(STAFF_ID, NINE.plusMinutes(15), NINE.plusMinutes(45), null))
+                .isInstanceOf(AppointmentConflictException.class);
+    }
+
+    @Test
+    void acceptsAdjacentHoldAndLoadsTimelineOnce() {
+        index.hold(STAFF_ID, NINE.plusMinutes(30), NINE.plusMinutes(60), null);
+        index.hold(STAFF_ID, NINE.minusMinutes(30), NINE, null);
+
+        verify(appointmentRepository, times(1)).findActiveIntervalsByStaffId(eq(STAFF_ID), any());
+    }
+
+    @Test
+    void rescheduleIgnoresTheAppointmentBeingMoved() {
+        index.hold(STAFF_ID, NINE.plusMinutes(10), NINE.plusMinutes(40), 100L);
+    }
+
+    @Test
+    void boundHoldBlocksLaterBookingsAndReleaseFreesIt() {
+        StaffBookingIndex.Hold hold = index.hold(STAFF_ID, NINE.plusHours(1), NINE.plusHours(2), null);
+        hold.bind(200L);
+
+        assertThatThrownBy(() -> index.hold(STAFF_ID, NINE.plusMinutes(90), NINE.plusMinutes(100), null))
+                .isInstanceOf(AppointmentConflictException.class);
+
+        index.release(STAFF_ID, 200L);
+        index.hold(STAFF_ID, NINE.plusMinutes(90), NINE.plusMinutes(100), null);
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentHoldsOnTheSameSlotSucceeds() throws InterruptedException {
+        int clients = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < clients; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    index.hold(STAFF_ID, NINE.plusHours(3), NINE.plusHours(4), null);
+                    accepted.incrementAndGet();
+                } catch (AppointmentConflictException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+
+        assertThat(accepted.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(clients - 1);
+    }
+
+    @Test
+    void timelineFindsOverlapWithLongIntervalStartingFarEarlier() {
+        StaffBookingIndex.StaffTimeline timeline = new StaffBookingIndex.StaffTimeline(0);
+        timeline.put(1, 0, 10_000);
+        for (int i = 0; i < 20; i++) {
+            timeline.put(10 + i, 20_000 + i * 100L, 20_000 + i * 100L + 50);
+        }
+
+        assertThat(timeline.tryInsert(-1, 9_000, 9_500, 0)).isFalse();
+        assertThat(timeline.tryInsert(-2, 10_000, 10_500, 0)).isTrue();
+        assertThat(timeline.tryInsert(-3, 20_040, 20_060, 0)).isFalse();
+        assertThat(timeline.tryInsert(-4, 20_050, 20_100, 0)).isTrue();
+    }
+
+    @Test
+    void timelinePutReplacesAndRemoveDrops() {
+        StaffBookingIndex.StaffTimeline timeline = new StaffBookingIndex.StaffTimeline(1);
+        timeline.put(5, 100, 200);
+        timeline.put(5, 300, 400);
+
+        assertThat(timeline.tryInsert(-1, 100, 200, 0)).isTrue();
+        assertThat(timeline.tryInsert(-2, 350, 360, 0)).isFalse();
+        assertThat(timeline.tryInsert(-3, 350, 360, 5)).isTrue();
+
+        timeline.remove(5);
+        timeline.remove(-3);
+        assertThat(timeline.tryInsert(-4, 300, 400, 0)).isTrue();
+    }
+
+    @Test
+    void timelineCopiesOnlyHolds() {
+        StaffBookingIndex.StaffTimeline previous = new StaffBookingIndex.StaffTimeline(4);
+        previous.put(5, 100, 200);
+        previous.put(-1, 300, 400);
+        StaffBookingIndex.StaffTimeline reloaded = new StaffBookingIndex.StaffTimeline(4);
+
+        previous.copyHoldsTo(reloaded);
+
+        assertThat(reloaded.tryInsert(-2, 100, 200, 0)).isTrue();
+        assertThat(reloaded.tryInsert(-3, 350, 360, 0)).isFalse();
+    }
+
+    private static AppointmentInterval interval(Long id, LocalDateTime start, LocalDateTime end) {
+        return new AppointmentInterval() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getStartTime() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndTime() {
+                return end;
+            }
+        };
+    }
+}
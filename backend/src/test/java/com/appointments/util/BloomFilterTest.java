@@ -0,0 +1,46 @@
+package com.appointments.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverReturnsFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] values = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toArray(String[]::new);
+        for (String value : values) {
+            filter.put(value);
+        }
+
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        int probes = 100_000;
+        long falsePositives = IntStream.range(0, probes).filter(i -> filter.mightContain("other-" + i)).count();
+
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void concurrentWritersLoseNoBits() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        IntStream.range(0, 50_000).parallel().forEach(i -> filter.put("jti-" + i));
+
+        assertThat(IntStream.range(0, 50_000).allMatch(i -> filter.mightContain("jti-" + i))).isTrue();
+        assertThat(filter.getExpectedInsertions()).isEqualTo(50_000);
+    }
+}
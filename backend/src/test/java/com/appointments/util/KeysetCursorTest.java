@@ -0,0 +1,42 @@
+package com.appointments.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsStartTimeAndId() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 9, 30, 15);
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor(start, 123456789L).encode());
+
+        assertThat(decoded.getStartTime()).isEqualTo(start);
+        assertThat(decoded.getId()).isEqualTo(123456789L);
+    }
+
+    @Test
+    void encodesUrlSafelyWithoutPadding() {
+        String token = new KeysetCursor(LocalDateTime.of(2030, 1, 1, 0, 0), 1L).encode();
+
+        assertThat(token).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void rejectsTokensItDidNotProduce() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2030-01-01T00:00".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().encodeToString("yesterday|5".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().encodeToString("2030-01-01T00:00|x".getBytes(StandardCharsets.UTF_8));
+
+        for (String token : new String[]{"not base64!", noSeparator, badDate, badId}) {
+            assertThatThrownBy(() -> KeysetCursor.decode(token))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.appointments.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageTemplateTest {
+
+    @Test
+    void rendersPlaceholdersBetweenLiterals() {
+        MessageTemplate template = MessageTemplate.compile("Hi %name%, see you at %time% with %staff%.");
+
+        assertThat(template.render(Map.of("%name%", "Ana", "%time%", "09:30", "%staff%", "Dr. Lee")))
+                .isEqualTo("Hi Ana, see you at 09:30 with Dr. Lee.");
+        assertThat(template.getSource()).isEqualTo("Hi %name%, see you at %time% with %staff%.");
+    }
+
+    @Test
+    void missingValuesRenderEmpty() {
+        MessageTemplate template = MessageTemplate.compile("[%a%|%b%]");
+
+        assertThat(template.render(Map.of("%a%", "x"))).isEqualTo("[x|]");
+    }
+
+    @Test
+    void adjacentAndRepeatedPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("%a%%b%%a%");
+
+        assertThat(template.render(Map.of("%a%", "1", "%b%", "2"))).isEqualTo("121");
+    }
+
+    @Test
+    void unmatchedDelimiterStaysLiteral() {
+        assertThat(MessageTemplate.compile("50% off").render(Map.of())).isEqualTo("50% off");
+    }
+}
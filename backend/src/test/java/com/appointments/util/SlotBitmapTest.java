@@ -0,0 +1,92 @@
+package com.appointments.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotBitmapTest {
+
+    @Test
+    void mapsTimesToSlots() {
+        assertThat(SlotBitmap.slotOf(LocalTime.MIDNIGHT)).isZero();
+        assertThat(SlotBitmap.slotOf(LocalTime.of(9, 4))).isEqualTo(108);
+        assertThat(SlotBitmap.slotCeil(LocalTime.of(9, 0))).isEqualTo(108);
+        assertThat(SlotBitmap.slotCeil(LocalTime.of(9, 1))).isEqualTo(109);
+        assertThat(SlotBitmap.slotCeil(LocalTime.of(9, 0, 1))).isEqualTo(109);
+        assertThat(SlotBitmap.slotOf(LocalTime.of(23, 59))).isEqualTo(SlotBitmap.SLOTS_PER_DAY - 1);
+    }
+
+    @Test
+    void setAndClearRangesAcrossWordBoundaries() {
+        long[] bits = SlotBitmap.newDay();
+        SlotBitmap.setRange(bits, 0, 60, 130);
+        SlotBitmap.clearRange(bits, 0, 64, 66);
+
+        boolean[] expected = new boolean[SlotBitmap.SLOTS_PER_DAY];
+        for (int i = 60; i < 130; i++) {
+            expected[i] = i < 64 || i >= 66;
+        }
+        assertMatches(bits, 0, expected);
+    }
+
+    @Test
+    void rangesAreClippedToTheDay() {
+        long[] bits = new long[2 * SlotBitmap.WORDS_PER_DAY + 1];
+        int secondDay = SlotBitmap.WORDS_PER_DAY * 64;
+        SlotBitmap.setRange(bits, secondDay, -10, SlotBitmap.SLOTS_PER_DAY + 10);
+
+        assertThat(bits[0]).isZero();
+        assertThat(SlotBitmap.nextSetBit(bits, 0)).isEqualTo(secondDay);
+        assertThat(SlotBitmap.nextSetBit(bits, secondDay + SlotBitmap.SLOTS_PER_DAY)).isEqualTo(-1);
+    }
+
+    @Test
+    void keepRunStartsMatchesNaiveScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            boolean[] free = new boolean[SlotBitmap.SLOTS_PER_DAY];
+            long[] bits = SlotBitmap.newDay();
+            for (int i = 0; i < free.length; i++) {
+                if (random.nextInt(10) < 8) {
+                    free[i] = true;
+                    SlotBitmap.setRange(bits, 0, i, i + 1);
+                }
+            }
+            int length = 1 + random.nextInt(100);
+            SlotBitmap.keepRunStarts(bits, length);
+
+            boolean[] expected = new boolean[free.length];
+            for (int i = 0; i < free.length; i++) {
+                boolean run = i + length <= free.length;
+                for (int j = i; run && j < i + length; j++) {
+                    run = free[j];
+                }
+                expected[i] = run;
+            }
+            assertMatches(bits, 0, expected);
+        }
+    }
+
+    @Test
+    void nextSetBitWalksForward() {
+        long[] bits = SlotBitmap.newDay();
+        SlotBitmap.setRange(bits, 0, 3, 4);
+        SlotBitmap.setRange(bits, 0, 200, 201);
+
+        assertThat(SlotBitmap.nextSetBit(bits, 0)).isEqualTo(3);
+        assertThat(SlotBitmap.nextSetBit(bits, 4)).isEqualTo(200);
+        assertThat(SlotBitmap.nextSetBit(bits, 201)).isEqualTo(-1);
+        assertThat(SlotBitmap.nextSetBit(bits, bits.length * 64)).isEqualTo(-1);
+    }
+
+    private static void assertMatches(long[] bits, int offset, boolean[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            int bit = offset + i;
+            boolean set = (bits[bit >>> 6] & (1L << bit)) != 0;
+            assertThat(set).as("slot %d", i).isEqualTo(expected[i]);
+        }
+    }
+}
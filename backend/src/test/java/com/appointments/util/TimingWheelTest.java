@@ -0,0 +1,104 @@
+package com.appointments.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    void expiresOnTheTickOfTheDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("a", 250);
+
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 10_000);
+        wheel.schedule("late", 5_000);
+
+        assertThat(wheel.advance(10_100)).containsExactly("late");
+    }
+
+    @Test
+    void rescheduleMovesAndCancelRemoves() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule("a", 1_000);
+        wheel.schedule("b", 1_000);
+        wheel.schedule("a", 5_000);
+
+        assertThat(wheel.cancel("b")).isTrue();
+        assertThat(wheel.cancel("b")).isFalse();
+        assertThat(wheel.advance(4_900)).isEmpty();
+        assertThat(wheel.advance(5_000)).containsExactly("a");
+    }
+
+    @Test
+    void cascadesFromCoarseLevelsInDeadlineOrder() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 0);
+        // 64^3 ticks is about 7.3 hours at 100ms; cover every level and a deadline past the top one
+        long[] deadlines = {150, 6_500, 409_700, 26_214_500, 1_677_721_700L, 2_000_000_000L};
+        for (int i = deadlines.length - 1; i >= 0; i--) {
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        List<Integer> expired = new ArrayList<>();
+        Map<Integer, Long> expiredAt = new HashMap<>();
+        for (long now = 0; now <= 2_000_000_000L; now += 50_000) {
+            for (Integer key : wheel.advance(now)) {
+                expired.add(key);
+                expiredAt.put(key, now);
+            }
+        }
+
+        assertThat(expired).containsExactly(0, 1, 2, 3, 4, 5);
+        for (int i = 0; i < deadlines.length; i++) {
+            assertThat(expiredAt.get(i)).isBetween(deadlines[i], deadlines[i] + 50_000);
+        }
+    }
+
+    @Test
+    void matchesReferenceScheduleForRandomDeadlines() {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            long deadline = (long) (random.nextDouble() * 3 * 3_600_000);
+            wheel.schedule(i, deadline);
+            deadlines.put(i, deadline);
+        }
+        for (int i = 0; i < 500; i++) {
+            wheel.cancel(i);
+            deadlines.remove(i);
+        }
+
+        long now = 0;
+        while (now <= 3 * 3_600_000 + TICK) {
+            now += 1 + random.nextInt(20_000);
+            for (Integer key : wheel.advance(now)) {
+                long deadline = deadlines.remove(key);
+                // Expired no earlier than the deadline's tick, and not after the step that passed it
+                assertThat(deadline / TICK).isLessThanOrEqualTo(now / TICK);
+            }
+            long currentTick = now / TICK;
+            long pendingAtOrBefore = deadlines.values().stream()
+                    .filter(deadline -> (deadline + TICK - 1) / TICK <= currentTick)
+                    .count();
+            assertThat(pendingAtOrBefore).isZero();
+        }
+        assertThat(deadlines).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+}
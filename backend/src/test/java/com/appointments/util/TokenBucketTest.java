@@ -0,0 +1,46 @@
+package com.appointments.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsAvailableImmediately() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.acquire(0)).isTrue();
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+    }
+
+    @Test
+    void refusesWithoutConsumingWhenTheWaitIsTooLong() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertThat(bucket.acquire(0)).isTrue();
+
+        assertThat(bucket.acquire(10)).isFalse();
+        // The refused call reserved nothing, so the next token is still about 100ms away
+        long start = System.nanoTime();
+        assertThat(bucket.acquire(1_000)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(200);
+    }
+
+    @Test
+    void sustainedRateFollowsPermitsPerSecond() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(200, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 41; i++) {
+            assertThat(bucket.acquire(1_000)).isTrue();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 40 refills at 200/s take 200ms
+        assertThat(elapsedMillis).isBetween(180L, 1_000L);
+    }
+}